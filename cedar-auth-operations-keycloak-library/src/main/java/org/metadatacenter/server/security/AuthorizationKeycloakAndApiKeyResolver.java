@@ -41,10 +41,18 @@ public class AuthorizationKeycloakAndApiKeyResolver implements IAuthorizationRes
         return user;
       }
     } else if (authRequest instanceof CedarApiKeyAuthRequest) {
-      try {
-        user = userService.findUserByApiKey(authRequest.getAuthString());
-      } catch (IOException e) {
-        throw new CedarUserNotFoundException(new FailedToLoadUserByApiKeyException(e));
+      String apiKey = authRequest.getAuthString();
+      String cacheKey = apiKey == null ? null : AuthenticatedUserCache.apiKeyKey(apiKey);
+      user = cacheKey == null ? null : AuthenticatedUserCache.get(cacheKey);
+      if (user == null) {
+        try {
+          user = userService.findUserByApiKey(apiKey);
+        } catch (IOException e) {
+          throw new CedarUserNotFoundException(new FailedToLoadUserByApiKeyException(e));
+        }
+        if (cacheKey != null) {
+          AuthenticatedUserCache.put(cacheKey, user);
+        }
       }
       if (user == null) {
         throw new CedarUserNotFoundException(new ApiKeyNotFoundException(authRequest.getAuthString()));
@@ -72,14 +72,19 @@ public class KeycloakUtils {
     String token = authRequest.getAuthString();
     AccessToken accessToken = checkIfTokenIsStillActiveByUserInfo(token);
     String userUuid = accessToken.getSubject();
+    String cacheKey = AuthenticatedUserCache.tokenKey(userUuid, accessToken.getExpiration());
+    CedarUser user = AuthenticatedUserCache.get(cacheKey);
+    if (user != null) {
+      return user;
+    }
     String userId = linkedDataUtil.getUserId(userUuid);
     CedarUserId uid = CedarUserId.build(userId);
-    CedarUser user = null;
     try {
       user = userService.findUser(uid);
     } catch (IOException e) {
       log.error("Error while getting user", e);
     }
+    AuthenticatedUserCache.put(cacheKey, user);
     return user;
   }
 
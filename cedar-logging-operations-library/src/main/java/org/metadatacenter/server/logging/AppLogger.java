@@ -5,10 +5,15 @@ import org.metadatacenter.server.logging.model.AppLogMessage;
 import org.metadatacenter.server.logging.model.AppLogSubType;
 import org.metadatacenter.server.logging.model.AppLogType;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 public class AppLogger {
 
   public static AppLoggerQueueService appLoggerQueueService;
   private static SystemComponent systemComponent;
+  // Cypher logging generates a large volume of messages, and it is not required on an ongoing basis.
+  // It is disabled by default, and it can be enabled for a fraction of the queries, between 0.0 and 1.0
+  private static volatile double cypherQuerySampleRate = 0.0;
 
   public static void initLoggerQueueService(AppLoggerQueueService appLoggerQueueService,
                                             SystemComponent systemComponent) {
@@ -22,6 +27,30 @@ public class AppLogger {
     return m;
   }
 
+  public static void setCypherQuerySampleRate(double sampleRate) {
+    AppLogger.cypherQuerySampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+  }
+
+  public static double getCypherQuerySampleRate() {
+    return cypherQuerySampleRate;
+  }
+
+  public static boolean isCypherQueryLoggingEnabled() {
+    return cypherQuerySampleRate > 0.0 && appLoggerQueueService != null;
+  }
+
+  /**
+   * Decides whether the current Cypher query should be logged. It should be called before any log data is collected,
+   * so that the skipped queries do not pay for it.
+   */
+  public static boolean shouldLogCypherQuery() {
+    double rate = cypherQuerySampleRate;
+    if (rate <= 0.0 || appLoggerQueueService == null) {
+      return false;
+    }
+    return rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
   public static void enqueue(AppLogMessage appLogMessage) {
     appLoggerQueueService.enqueueEvent(appLogMessage);
   }
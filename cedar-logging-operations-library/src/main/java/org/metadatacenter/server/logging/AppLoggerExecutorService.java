@@ -14,9 +14,22 @@ import org.metadatacenter.util.json.JsonMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 public class AppLoggerExecutorService {
 
   private static final Logger log = LoggerFactory.getLogger(AppLoggerExecutorService.class);
+  private static final int JDBC_BATCH_SIZE = 100;
+  private static final int LOOKUP_BATCH_SIZE = 500;
+
   private ApplicationRequestLogDAO requestLogDAO;
   private ApplicationCypherLogDAO cypherLogDAO;
 
@@ -28,36 +41,99 @@ public class AppLoggerExecutorService {
 
   @UnitOfWork
   public void handleLog(AppLogMessage appLog) {
-    if (appLog.getType() == AppLogType.REQUEST_FILTER) {
-      if (appLog.getSubType() == AppLogSubType.START) {
-        ApplicationRequestLog l = ApplicationRequestLog.fromAppRequestFilter(appLog);
-        requestLogDAO.createOrUpdate(l);
-      } else if (appLog.getSubType() == AppLogSubType.END) {
-        ApplicationRequestLog oldLog = requestLogDAO.findByLocalRequestId(appLog.getLocalRequestId());
+    persistLogs(Collections.singletonList(appLog));
+  }
+
+  /**
+   * Handles a batch of messages in one transaction. The request logs of the batch are loaded with one query, the
+   * messages of the same request are merged in memory, and every row is written once. If the batch can not be
+   * persisted, the messages are persisted one by one in their own transactions, so a bad message only loses itself.
+   */
+  @UnitOfWork
+  public void handleLogs(List<AppLogMessage> appLogs) {
+    try {
+      persistLogs(appLogs);
+      requestLogDAO.flush();
+    } catch (PersistenceException e) {
+      log.error("Error while persisting a batch of " + appLogs.size() + " log messages, persisting them one by one", e);
+      requestLogDAO.rollbackAndBeginTransaction();
+      persistLogsOneByOne(appLogs);
+    }
+  }
+
+  // In queue order, so the messages of a request find the row written by the previous ones
+  private void persistLogsOneByOne(List<AppLogMessage> appLogs) {
+    for (AppLogMessage appLog : appLogs) {
+      try {
+        persistLogs(Collections.singletonList(appLog));
+        requestLogDAO.commitAndBeginTransaction();
+      } catch (PersistenceException e) {
+        log.error("Error while persisting log message, dropping it. Type:" + appLog.getType() + ", local request id:" +
+            appLog.getLocalRequestId(), e);
+        requestLogDAO.rollbackAndBeginTransaction();
+      }
+    }
+  }
+
+  private void persistLogs(List<AppLogMessage> appLogs) {
+    Map<String, ApplicationRequestLog> requestLogs = loadExistingRequestLogs(appLogs);
+    List<ApplicationCypherLog> cypherLogs = new ArrayList<>();
+
+    for (AppLogMessage appLog : appLogs) {
+      if (appLog.getType() == AppLogType.REQUEST_FILTER) {
+        if (appLog.getSubType() == AppLogSubType.START) {
+          requestLogs.putIfAbsent(appLog.getLocalRequestId(), ApplicationRequestLog.fromAppRequestFilter(appLog));
+        } else if (appLog.getSubType() == AppLogSubType.END) {
+          ApplicationRequestLog oldLog = requestLogs.get(appLog.getLocalRequestId());
+          if (oldLog != null) {
+            oldLog.mergeEndLog(appLog);
+          }
+        }
+      } else if (appLog.getType() == AppLogType.REQUEST_HANDLER) {
+        ApplicationRequestLog oldLog = requestLogs.get(appLog.getLocalRequestId());
+        if (oldLog != null) {
+          oldLog.mergeStartLog(appLog);
+        }
+      } else if (appLog.getType() == AppLogType.RESPONSE_EXCEPTION) {
+        ApplicationRequestLog oldLog = requestLogs.get(appLog.getLocalRequestId());
         if (oldLog != null) {
-          oldLog.mergeEndLog(appLog);
-          requestLogDAO.createOrUpdate(oldLog);
+          try {
+            oldLog.setErrorPack(JsonMapper.MAPPER.writeValueAsString(appLog.getParamAsMap(AppLogParam.EXCEPTION)));
+          } catch (JsonProcessingException e) {
+            log.error("Error while serializing ErrorPack for DB log", e);
+          }
         }
+      } else if (appLog.getType() == AppLogType.CYPHER_QUERY) {
+        cypherLogs.add(ApplicationCypherLog.fromAppCypherLog(appLog));
       }
-    } else if (appLog.getType() == AppLogType.REQUEST_HANDLER) {
-      ApplicationRequestLog oldLog = requestLogDAO.findByLocalRequestId(appLog.getLocalRequestId());
-      if (oldLog != null) {
-        oldLog.mergeStartLog(appLog);
-        requestLogDAO.createOrUpdate(oldLog);
+    }
+
+    requestLogDAO.createOrUpdateAll(requestLogs.values(), JDBC_BATCH_SIZE);
+    cypherLogDAO.createAll(cypherLogs, JDBC_BATCH_SIZE);
+  }
+
+  // Only the messages that update a request started in an earlier batch need the stored row
+  private Map<String, ApplicationRequestLog> loadExistingRequestLogs(List<AppLogMessage> appLogs) {
+    Set<String> startedInBatch = new HashSet<>();
+    Set<String> toLoad = new LinkedHashSet<>();
+    for (AppLogMessage appLog : appLogs) {
+      String localRequestId = appLog.getLocalRequestId();
+      if (appLog.getType() == AppLogType.REQUEST_FILTER && appLog.getSubType() == AppLogSubType.START) {
+        startedInBatch.add(localRequestId);
+      } else if (appLog.getType() != AppLogType.CYPHER_QUERY && localRequestId != null &&
+          !startedInBatch.contains(localRequestId)) {
+        toLoad.add(localRequestId);
       }
-    } else if (appLog.getType() == AppLogType.RESPONSE_EXCEPTION) {
-      ApplicationRequestLog oldLog = requestLogDAO.findByLocalRequestId(appLog.getLocalRequestId());
-      if (oldLog != null) {
-        try {
-          oldLog.setErrorPack(JsonMapper.MAPPER.writeValueAsString(appLog.getParamAsMap(AppLogParam.EXCEPTION)));
-          requestLogDAO.createOrUpdate(oldLog);
-        } catch (JsonProcessingException e) {
-          log.error("Error while serializing ErrorPack for DB log", e);
-        }
+    }
+
+    Map<String, ApplicationRequestLog> requestLogs = new LinkedHashMap<>();
+    List<String> ids = new ArrayList<>(toLoad);
+    for (int i = 0; i < ids.size(); i += LOOKUP_BATCH_SIZE) {
+      List<String> chunk = ids.subList(i, Math.min(i + LOOKUP_BATCH_SIZE, ids.size()));
+      for (ApplicationRequestLog requestLog : requestLogDAO.findByLocalRequestIds(chunk)) {
+        requestLogs.put(requestLog.getLocalRequestId(), requestLog);
       }
-    } else if (appLog.getType() == AppLogType.CYPHER_QUERY) {
-      ApplicationCypherLog l = ApplicationCypherLog.fromAppCypherLog(appLog);
-      cypherLogDAO.create(l);
     }
+    return requestLogs;
   }
 }
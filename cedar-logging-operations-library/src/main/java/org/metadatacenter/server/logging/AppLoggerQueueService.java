@@ -3,38 +3,194 @@ package org.metadatacenter.server.logging;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.metadatacenter.config.CacheServerPersistent;
 import org.metadatacenter.server.logging.model.AppLogMessage;
-import org.metadatacenter.server.logging.model.AppLogType;
 import org.metadatacenter.server.queue.util.QueueServiceWithBlockingQueue;
+import org.metadatacenter.util.EnvUtil;
 import org.metadatacenter.util.json.JsonMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log messages are not sent to Redis on the request thread. They are put into a bounded in-memory buffer, and a
+ * background thread pushes them to the queue in batches, with one rpush per batch. When the buffer is full, messages
+ * are either dropped or the caller waits for room, depending on the configured policy.
+ */
 public class AppLoggerQueueService extends QueueServiceWithBlockingQueue {
 
   private static final Logger log = LoggerFactory.getLogger(AppLoggerQueueService.class);
 
+  public enum BufferFullPolicy {
+    DROP, BLOCK
+  }
+
+  public static final int DEFAULT_BUFFER_SIZE = 10000;
+  public static final int DEFAULT_FLUSH_BATCH_SIZE = 500;
+  public static final BufferFullPolicy DEFAULT_BUFFER_FULL_POLICY = BufferFullPolicy.DROP;
+
+  public static final String BUFFER_SIZE_VARIABLE = "CEDAR_APP_LOG_BUFFER_SIZE";
+  public static final String FLUSH_BATCH_SIZE_VARIABLE = "CEDAR_APP_LOG_FLUSH_BATCH_SIZE";
+  public static final String BUFFER_FULL_POLICY_VARIABLE = "CEDAR_APP_LOG_BUFFER_FULL_POLICY";
+
+  private static final long FLUSHER_POLL_MILLIS = 1000;
+  private static final long FLUSHER_STOP_TIMEOUT_MILLIS = 5000;
+  private static final long DROPPED_REPORT_INTERVAL = 1000;
+
+  private final BlockingQueue<String> buffer;
+  private final int flushBatchSize;
+  private final BufferFullPolicy bufferFullPolicy;
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  private volatile Thread flusher;
+  private volatile boolean running;
+  private boolean closed;
+
   public AppLoggerQueueService(CacheServerPersistent cacheConfig) {
     super(cacheConfig, APP_LOG_QUEUE_ID);
+    buffer = new ArrayBlockingQueue<>((int) EnvUtil.readPositiveLong(BUFFER_SIZE_VARIABLE, DEFAULT_BUFFER_SIZE));
+    flushBatchSize = (int) EnvUtil.readPositiveLong(FLUSH_BATCH_SIZE_VARIABLE, DEFAULT_FLUSH_BATCH_SIZE);
+    bufferFullPolicy = readBufferFullPolicy();
+  }
+
+  private static BufferFullPolicy readBufferFullPolicy() {
+    String value = System.getenv(BUFFER_FULL_POLICY_VARIABLE);
+    if (value != null) {
+      try {
+        return BufferFullPolicy.valueOf(value.trim().toUpperCase());
+      } catch (IllegalArgumentException e) {
+        log.warn("Invalid value for " + BUFFER_FULL_POLICY_VARIABLE + ":" + value);
+      }
+    }
+    return DEFAULT_BUFFER_FULL_POLICY;
+  }
+
+  public void enqueueEvent(AppLogMessage message) {
+    // Cypher query messages are only produced if AppLogger samples them, see AppLogger.shouldLogCypherQuery()
+    String json;
+    try {
+      json = JsonMapper.MAPPER.writeValueAsString(message);
+    } catch (JsonProcessingException e) {
+      log.error("Error while enqueueing log message", e);
+      return;
+    }
+    if (flusher == null) {
+      startFlusher();
+    }
+    if (!running) {
+      // The service was closed, nothing would push the message anymore
+      messageDropped("the app log queue is closed");
+    } else if (bufferFullPolicy == BufferFullPolicy.BLOCK) {
+      try {
+        buffer.put(json);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        messageDropped("interrupted while waiting for room in the app log buffer");
+      }
+    } else if (!buffer.offer(json)) {
+      messageDropped("the app log buffer is full");
+    }
+  }
+
+  private void messageDropped(String reason) {
+    long dropped = droppedCount.incrementAndGet();
+    if (dropped % DROPPED_REPORT_INTERVAL == 1) {
+      log.warn("Log message dropped, " + reason + ", " + dropped + " log messages dropped so far");
+    }
+  }
+
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  // The consumer side of the queue uses the same class, it never starts the flusher
+  private synchronized void startFlusher() {
+    if (flusher == null && !closed) {
+      running = true;
+      flusher = new Thread(this::flushLoop, "app-log-flusher");
+      flusher.setDaemon(true);
+      flusher.start();
+    }
   }
 
-  public void enqueueEvent(AppLogMessage message)
-  {
-    // We are disabling Cypher logging because of the large volume of logs generated - and the fact that this type
-    // of specialized logging is not required on an ongoing basis.
-    //
-    // See metadatacenter/cedar-server-core-library#8 for a description of a principled way of enabling/disabling
-    // this type of logging.
-    if (message.getType() != AppLogType.CYPHER_QUERY)
-      try (Jedis jedis = pool.getResource()) {
-        String json = null;
-        try {
-          json = JsonMapper.MAPPER.writeValueAsString(message);
-          jedis.rpush(queueName, json);
-        } catch (JsonProcessingException e) {
-          log.error("Error while enqueueing log message", e);
+  private void flushLoop() {
+    List<String> batch = new ArrayList<>(flushBatchSize);
+    while (running || !buffer.isEmpty()) {
+      try {
+        String first = buffer.poll(FLUSHER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
         }
+        batch.add(first);
+        buffer.drainTo(batch, flushBatchSize - 1);
+        flush(batch);
+      } catch (InterruptedException e) {
+        running = false;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void flush(List<String> batch) {
+    try (Jedis jedis = pool.getResource()) {
+      jedis.rpush(queueName, batch.toArray(new String[0]));
+    } catch (Exception e) {
+      // Do not hold the messages back, Redis may be down for a while and the buffer would just fill up
+      long dropped = droppedCount.addAndGet(batch.size());
+      log.error("Error while flushing " + batch.size() + " log messages to the queue, " + dropped +
+          " log messages dropped so far", e);
+    }
+  }
+
+  /**
+   * Blocks until a message arrives, then takes the messages already waiting in the queue, up to maxMessages in total.
+   * Needs initializeBlockingQueue to be called first.
+   */
+  public List<AppLogMessage> waitForLogMessages(int maxMessages) {
+    List<AppLogMessage> messages = new ArrayList<>();
+    for (String message : waitForMessages(maxMessages)) {
+      addLogMessage(messages, message);
+    }
+    return messages;
+  }
+
+  private void addLogMessage(List<AppLogMessage> messages, String message) {
+    try {
+      messages.add(JsonMapper.MAPPER.readValue(message, AppLogMessage.class));
+    } catch (IOException e) {
+      log.error("Error while reading log message:" + message, e);
+    }
+  }
+
+  /**
+   * Stops the flusher after pushing the buffered messages, then closes the connections
+   */
+  @Override
+  public void close() {
+    Thread flusherToStop;
+    synchronized (this) {
+      flusherToStop = flusher;
+      running = false;
+      closed = true;
+    }
+    if (flusherToStop != null) {
+      try {
+        flusherToStop.join(FLUSHER_STOP_TIMEOUT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (!buffer.isEmpty()) {
+        log.warn(buffer.size() + " log messages were not flushed before closing the app log queue");
       }
+    }
+    super.close();
   }
 
 }
@@ -4,6 +4,8 @@ import io.dropwizard.hibernate.AbstractDAO;
 import org.hibernate.SessionFactory;
 import org.metadatacenter.server.logging.dbmodel.ApplicationCypherLog;
 
+import java.util.Collection;
+
 public class ApplicationCypherLogDAO extends AbstractDAO<ApplicationCypherLog> {
 
   public ApplicationCypherLogDAO(SessionFactory factory) {
@@ -14,4 +16,11 @@ public class ApplicationCypherLogDAO extends AbstractDAO<ApplicationCypherLog> {
     return persist(log).getId();
   }
 
+  public void createAll(Collection<ApplicationCypherLog> logs, int batchSize) {
+    currentSession().setJdbcBatchSize(batchSize);
+    for (ApplicationCypherLog log : logs) {
+      persist(log);
+    }
+  }
+
 }
\ No newline at end of file
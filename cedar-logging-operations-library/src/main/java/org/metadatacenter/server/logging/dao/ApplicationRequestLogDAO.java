@@ -1,13 +1,17 @@
 package org.metadatacenter.server.logging.dao;
 
 import io.dropwizard.hibernate.AbstractDAO;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 import org.metadatacenter.server.logging.dbmodel.ApplicationRequestLog;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import java.util.Collection;
+import java.util.List;
 
 public class ApplicationRequestLogDAO extends AbstractDAO<ApplicationRequestLog> {
 
@@ -28,4 +32,55 @@ public class ApplicationRequestLogDAO extends AbstractDAO<ApplicationRequestLog>
     Query<ApplicationRequestLog> q = currentSession().createQuery(query);
     return q.uniqueResult();
   }
-}
\ No newline at end of file
+
+  public List<ApplicationRequestLog> findByLocalRequestIds(Collection<String> localRequestIds) {
+    CriteriaBuilder builder = currentSession().getCriteriaBuilder();
+    CriteriaQuery<ApplicationRequestLog> query = builder.createQuery(ApplicationRequestLog.class);
+    Root<ApplicationRequestLog> root = query.from(ApplicationRequestLog.class);
+    query.select(root);
+    query.where(root.get("localRequestId").in(localRequestIds));
+    Query<ApplicationRequestLog> q = currentSession().createQuery(query);
+    return q.list();
+  }
+
+  /**
+   * Persists the logs in one go. The inserts and updates are sent to the database in JDBC batches when the session
+   * is flushed.
+   */
+  public void createOrUpdateAll(Collection<ApplicationRequestLog> logs, int batchSize) {
+    currentSession().setJdbcBatchSize(batchSize);
+    for (ApplicationRequestLog log : logs) {
+      persist(log);
+    }
+  }
+
+  /**
+   * Sends the pending changes of the current session to the database, so errors are raised here instead of at the end
+   * of the unit of work. The session is shared by all the DAOs of the unit of work.
+   */
+  public void flush() {
+    currentSession().flush();
+  }
+
+  /**
+   * Commits the current transaction and starts a new one in the same session
+   */
+  public void commitAndBeginTransaction() {
+    Session session = currentSession();
+    session.getTransaction().commit();
+    session.beginTransaction();
+  }
+
+  /**
+   * Rolls back the current transaction, discards the state of the session and starts a new transaction
+   */
+  public void rollbackAndBeginTransaction() {
+    Session session = currentSession();
+    Transaction transaction = session.getTransaction();
+    if (transaction.isActive()) {
+      transaction.rollback();
+    }
+    session.clear();
+    session.beginTransaction();
+  }
+}
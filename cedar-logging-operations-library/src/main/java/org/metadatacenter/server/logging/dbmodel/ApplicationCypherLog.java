@@ -1,6 +1,7 @@
 package org.metadatacenter.server.logging.dbmodel;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.metadatacenter.server.logging.model.AppLogMessage;
 import org.metadatacenter.server.logging.model.AppLogParam;
 import org.metadatacenter.util.json.JsonMapper;
@@ -89,8 +90,6 @@ public class ApplicationCypherLog {
     l.original = appLog.getParamAsString(AppLogParam.ORIGINAL_QUERY);
     l.runnable = appLog.getParamAsString(AppLogParam.RUNNABLE_QUERY);
     l.interpolated = appLog.getParamAsString(AppLogParam.INTERPOLATED_QUERY);
-    l.runnableHash = appLog.getParamAsString(AppLogParam.RUNNABLE_QUERY_HASH);
-    l.parametersHash = appLog.getParamAsString(AppLogParam.QUERY_PARAMETERS_HASH);
     l.logTime = appLog.getLogTime();
     l.duration = appLog.getDuration().toNanos();
     l.startTime = appLog.getStartTime();
@@ -105,6 +104,15 @@ public class ApplicationCypherLog {
     } catch (JsonProcessingException e) {
       log.error("Error serializing parameters", e);
     }
+    // The hashes are computed here, on the consumer side, so that the request thread does not pay for them
+    l.runnableHash = appLog.getParamAsString(AppLogParam.RUNNABLE_QUERY_HASH);
+    if (l.runnableHash == null && l.runnable != null) {
+      l.runnableHash = DigestUtils.md5Hex(l.runnable);
+    }
+    l.parametersHash = appLog.getParamAsString(AppLogParam.QUERY_PARAMETERS_HASH);
+    if (l.parametersHash == null && l.parameters != null) {
+      l.parametersHash = DigestUtils.md5Hex(l.parameters);
+    }
     return l;
   }
 
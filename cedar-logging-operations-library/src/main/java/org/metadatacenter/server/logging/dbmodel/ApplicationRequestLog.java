@@ -125,6 +125,10 @@ public class ApplicationRequestLog {
     return id;
   }
 
+  public String getLocalRequestId() {
+    return localRequestId;
+  }
+
   public void mergeStartLog(AppLogMessage appLog) {
     className = appLog.getParamAsString(AppLogParam.CLASS_NAME);
     methodName = appLog.getParamAsString(AppLogParam.METHOD_NAME);
@@ -8,6 +8,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 public class PermissionQueueService extends QueueServiceWithBlockingQueue {
 
   private static final Logger log = LoggerFactory.getLogger(PermissionQueueService.class);
@@ -27,4 +31,49 @@ public class PermissionQueueService extends QueueServiceWithBlockingQueue {
       jedis.rpush(queueName, json);
     }
   }
+
+  /**
+   * Blocks until an event arrives, then keeps collecting events for at most windowSeconds, so bursts can be handled
+   * as one batch. Needs initializeBlockingQueue to be called first.
+   *
+   * @param maxEvents     the maximum number of events to return
+   * @param windowSeconds how long to wait for more events after the first one
+   * @return the events, in queue order
+   */
+  public List<SearchPermissionQueueEvent> waitForEvents(int maxEvents, int windowSeconds) {
+    List<SearchPermissionQueueEvent> events = new ArrayList<>();
+    addEvents(events, waitForMessages(maxEvents));
+    long deadline = System.currentTimeMillis() + windowSeconds * 1000L;
+    while (events.size() < maxEvents) {
+      List<String> messages = drainMessages(maxEvents - events.size());
+      if (!messages.isEmpty()) {
+        addEvents(events, messages);
+      } else {
+        long remainingSeconds = (deadline - System.currentTimeMillis()) / 1000;
+        if (remainingSeconds <= 0) {
+          break;
+        }
+        List<String> waited = waitForMessages(maxEvents - events.size(), (int) remainingSeconds);
+        if (waited.isEmpty()) {
+          break;
+        }
+        addEvents(events, waited);
+      }
+    }
+    return events;
+  }
+
+  private void addEvents(List<SearchPermissionQueueEvent> events, List<String> messages) {
+    for (String message : messages) {
+      addEvent(events, message);
+    }
+  }
+
+  private void addEvent(List<SearchPermissionQueueEvent> events, String message) {
+    try {
+      events.add(JsonMapper.MAPPER.readValue(message, SearchPermissionQueueEvent.class));
+    } catch (IOException e) {
+      log.error("Error while reading search permission event:" + message, e);
+    }
+  }
 }
@@ -2,7 +2,6 @@ package org.metadatacenter.server.queue.util;
 
 import org.metadatacenter.config.CacheServerPersistent;
 import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
 
 public abstract class QueueService {
 
@@ -16,9 +15,7 @@ public abstract class QueueService {
 
   public QueueService(CacheServerPersistent cacheConfig) {
     this.cacheConfig = cacheConfig;
-    pool = new JedisPool(new JedisPoolConfig(), cacheConfig.getConnection().getHost(),
-        cacheConfig.getConnection().getPort(), cacheConfig.getConnection().getTimeout());
-
+    pool = SharedJedisPools.acquire(cacheConfig);
   }
 
   public abstract void close();
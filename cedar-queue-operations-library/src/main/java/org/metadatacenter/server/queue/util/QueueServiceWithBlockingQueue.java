@@ -1,21 +1,113 @@
 package org.metadatacenter.server.queue.util;
 
 import org.metadatacenter.config.CacheServerPersistent;
+import org.metadatacenter.util.EnvUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * A queue consumed with blocking reads.
+ * <p>
+ * In reliable delivery mode, the messages taken by a consumer are not removed from Redis. They are moved to a
+ * processing list of the consumer and stay there until they are acknowledged, either explicitly or by asking for the
+ * next messages. Every consumer keeps a heartbeat key alive while it waits for or works on messages. When a consumer
+ * starts, it puts its own unacknowledged messages back at the head of the queue, and while it waits it regularly does
+ * the same with the processing lists of the consumers whose heartbeat has expired. A message can therefore be handled
+ * more than once, for example when handling a batch takes longer than the processing timeout, but it is not lost if a
+ * consumer dies while handling it.
+ */
 public abstract class QueueServiceWithBlockingQueue extends QueueService {
 
   private static final Logger log = LoggerFactory.getLogger(QueueServiceWithBlockingQueue.class);
+
+  public static final String RELIABLE_DELIVERY_VARIABLE = "CEDAR_QUEUE_RELIABLE_DELIVERY";
+  public static final String CONSUMER_ID_VARIABLE = "CEDAR_QUEUE_CONSUMER_ID";
+  public static final String PROCESSING_TIMEOUT_SECONDS_VARIABLE = "CEDAR_QUEUE_PROCESSING_TIMEOUT_SECONDS";
+  public static final int DEFAULT_PROCESSING_TIMEOUT_SECONDS = 600;
+
+  private static final String PROCESSING_SUFFIX = ":processing:";
+  private static final String CONSUMERS_SUFFIX = ":consumers";
+  private static final String ALIVE_SUFFIX = ":alive";
+
+  // Redis can not unpack more values than this into a single command
+  private static final int SCRIPT_PUSH_CHUNK_SIZE = 1000;
+  private static final int MAX_WAIT_SLICE_SECONDS = 60;
+
+  // KEYS[1]: queue, KEYS[2]: processing list, KEYS[3]: heartbeat, KEYS[4]: consumers
+  // ARGV[1]: maximum number of messages, ARGV[2]: '1' to first put the message moved by brpoplpush back at the tail
+  // of the queue, where it was taken from, ARGV[3]: heartbeat timeout in seconds, ARGV[4]: consumer id
+  private static final String MOVE_TO_PROCESSING_SCRIPT = "" +
+      "if ARGV[2] == '1' then " +
+      "  local waited = redis.call('LPOP', KEYS[2]) " +
+      "  if waited then redis.call('RPUSH', KEYS[1], waited) end " +
+      "end " +
+      "local messages = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1) " +
+      "if #messages > 0 then " +
+      "  redis.call('LTRIM', KEYS[1], #messages, -1) " +
+      "  for i = 1, #messages, " + SCRIPT_PUSH_CHUNK_SIZE + " do " +
+      "    redis.call('RPUSH', KEYS[2], unpack(messages, i, math.min(i + " + (SCRIPT_PUSH_CHUNK_SIZE - 1) +
+      ", #messages))) " +
+      "  end " +
+      "end " +
+      "redis.call('SETEX', KEYS[3], ARGV[3], ARGV[4]) " +
+      "redis.call('SADD', KEYS[4], ARGV[4]) " +
+      "return messages";
+
+  // KEYS[1]: processing list, KEYS[2]: queue, KEYS[3]: heartbeat, KEYS[4]: consumers
+  // ARGV[1]: consumer id, ARGV[2]: '1' to reclaim even if the heartbeat is alive, used for the own list at startup
+  // The messages keep their order, ahead of the ones already queued. A consumer is only deregistered once its
+  // processing list is empty, it registers again as soon as it takes messages.
+  private static final String RECLAIM_SCRIPT = "" +
+      "if ARGV[2] ~= '1' and redis.call('EXISTS', KEYS[3]) == 1 then return -1 end " +
+      "local messages = redis.call('LRANGE', KEYS[1], 0, -1) " +
+      "for i = #messages, 1, -1 do " +
+      "  redis.call('LPUSH', KEYS[2], messages[i]) " +
+      "end " +
+      "redis.call('DEL', KEYS[1]) " +
+      "if ARGV[2] ~= '1' then redis.call('SREM', KEYS[4], ARGV[1]) end " +
+      "return #messages";
+
   protected Jedis blockingQueue;
   protected String queueName;
 
+  private final boolean reliableDelivery;
+  private final String consumerId;
+  private final int processingTimeoutSeconds;
+  private final int waitSliceSeconds;
+
   public QueueServiceWithBlockingQueue(CacheServerPersistent cacheConfig, String queueId) {
     super(cacheConfig);
     queueName = cacheConfig.getQueueName(queueId);
+    reliableDelivery = EnvUtil.readBoolean(RELIABLE_DELIVERY_VARIABLE, false);
+    consumerId = readConsumerId();
+    processingTimeoutSeconds = (int) Math.min(Integer.MAX_VALUE,
+        EnvUtil.readPositiveLong(PROCESSING_TIMEOUT_SECONDS_VARIABLE, DEFAULT_PROCESSING_TIMEOUT_SECONDS));
+    // The heartbeat is refreshed after every slice of waiting, it must not expire in between
+    waitSliceSeconds = Math.max(1, Math.min(MAX_WAIT_SLICE_SECONDS, processingTimeoutSeconds / 2));
+  }
+
+  private static String readConsumerId() {
+    String value = System.getenv(CONSUMER_ID_VARIABLE);
+    if (value != null && !value.trim().isEmpty()) {
+      return value.trim();
+    }
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      log.warn("Unable to determine the host name, using the default queue consumer id");
+      return "default";
+    }
   }
 
   @Override
@@ -25,17 +117,166 @@ public abstract class QueueServiceWithBlockingQueue extends QueueService {
       log.info("Closing blocking queue");
       blockingQueue.close();
     }
-    log.info("Closing pool");
-    pool.close();
+    log.info("Releasing pool");
+    SharedJedisPools.release(pool);
     log.info("Closed");
   }
 
   public void initializeBlockingQueue() {
     blockingQueue = pool.getResource();
+    if (reliableDelivery) {
+      reclaim(consumerId, true);
+      markAlive();
+      reclaimStaleMessages();
+    }
+  }
+
+  public boolean isReliableDelivery() {
+    return reliableDelivery;
+  }
+
+  private String processingKey(String consumer) {
+    return queueName + PROCESSING_SUFFIX + consumer;
+  }
+
+  private String aliveKey(String consumer) {
+    return processingKey(consumer) + ALIVE_SUFFIX;
+  }
+
+  private String consumersKey() {
+    return queueName + CONSUMERS_SUFFIX;
+  }
+
+  // Puts back the messages of the consumers that have not been seen for the processing timeout
+  private void reclaimStaleMessages() {
+    Set<String> consumers = blockingQueue.smembers(consumersKey());
+    for (String consumer : consumers) {
+      if (!consumer.equals(consumerId)) {
+        reclaim(consumer, false);
+      }
+    }
+  }
+
+  private void reclaim(String consumer, boolean force) {
+    Object reclaimed = blockingQueue.eval(RECLAIM_SCRIPT,
+        Arrays.asList(processingKey(consumer), queueName, aliveKey(consumer), consumersKey()),
+        Arrays.asList(consumer, force ? "1" : "0"));
+    if (reclaimed instanceof Long && (Long) reclaimed > 0) {
+      log.warn("Put back " + reclaimed + " unacknowledged messages of consumer " + consumer + " into " + queueName);
+    }
+  }
+
+  // Registers the consumer and refreshes its heartbeat
+  private void markAlive() {
+    blockingQueue.sadd(consumersKey(), consumerId);
+    blockingQueue.setex(aliveKey(consumerId), processingTimeoutSeconds, consumerId);
   }
 
+  /**
+   * Confirms that the messages taken so far have been handled. Only needed in reliable delivery mode, where it is
+   * also done when the consumer asks for the next messages.
+   */
+  public void acknowledgeMessages() {
+    if (reliableDelivery) {
+      blockingQueue.del(processingKey(consumerId));
+    }
+  }
+
+  /**
+   * @return the queue name followed by the message, as returned by blpop
+   */
   public List<String> waitForMessages() {
-    return blockingQueue.blpop(0, queueName);
+    if (!reliableDelivery) {
+      return blockingQueue.blpop(0, queueName);
+    }
+    List<String> messages = waitForMessages(1);
+    return messages.isEmpty() ? null : Arrays.asList(queueName, messages.get(0));
+  }
+
+  /**
+   * Blocks until a message arrives, then takes the messages already waiting in the queue without blocking again, up
+   * to maxMessages in total. Needs initializeBlockingQueue to be called first.
+   *
+   * @return the messages, in queue order
+   */
+  public List<String> waitForMessages(int maxMessages) {
+    if (reliableDelivery) {
+      acknowledgeMessages();
+      List<String> messages = drainMessages(maxMessages);
+      if (!messages.isEmpty()) {
+        return messages;
+      }
+    }
+    return waitForMessages(maxMessages, 0);
+  }
+
+  /**
+   * Waits at most timeoutSeconds for a message, 0 meaning forever, then takes the messages already waiting in the
+   * queue, up to maxMessages in total. Does not acknowledge the messages taken before.
+   *
+   * @return the messages in queue order, empty on timeout
+   */
+  protected List<String> waitForMessages(int maxMessages, int timeoutSeconds) {
+    if (!reliableDelivery) {
+      List<String> messages = new ArrayList<>();
+      List<String> popped = blockingQueue.blpop(timeoutSeconds, queueName);
+      // blpop returns the queue name followed by the message
+      if (popped != null && popped.size() > 1) {
+        messages.add(popped.get(1));
+        if (maxMessages > 1) {
+          messages.addAll(drainMessages(maxMessages - 1));
+        }
+      }
+      return messages;
+    }
+    long deadline = System.currentTimeMillis() + timeoutSeconds * 1000L;
+    while (true) {
+      int slice = waitSliceSeconds;
+      if (timeoutSeconds > 0) {
+        long remainingSeconds = (deadline - System.currentTimeMillis()) / 1000;
+        if (remainingSeconds <= 0) {
+          return Collections.emptyList();
+        }
+        slice = (int) Math.min(slice, remainingSeconds);
+      }
+      markAlive();
+      // brpoplpush is only used to wait: it takes from the tail, so the script puts the message back where it was
+      // and then moves the head of the queue, keeping the processing list in queue order
+      String waited = blockingQueue.brpoplpush(queueName, processingKey(consumerId), slice);
+      if (waited != null) {
+        List<String> messages = moveToProcessing(maxMessages, true);
+        // Another consumer may have taken the message in the meantime
+        if (!messages.isEmpty()) {
+          return messages;
+        }
+      } else {
+        reclaimStaleMessages();
+      }
+    }
+  }
+
+  /**
+   * Takes at most maxMessages from the head of the queue without blocking. The read and the removal run in one
+   * transaction, so a single round-trip moves the whole batch and no other consumer can take the same messages.
+   */
+  protected List<String> drainMessages(int maxMessages) {
+    if (reliableDelivery) {
+      return moveToProcessing(maxMessages, false);
+    }
+    Transaction transaction = blockingQueue.multi();
+    Response<List<String>> range = transaction.lrange(queueName, 0, maxMessages - 1);
+    transaction.ltrim(queueName, maxMessages, -1);
+    transaction.exec();
+    return range.get();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> moveToProcessing(int maxMessages, boolean requeueWaited) {
+    Object moved = blockingQueue.eval(MOVE_TO_PROCESSING_SCRIPT,
+        Arrays.asList(queueName, processingKey(consumerId), aliveKey(consumerId), consumersKey()),
+        Arrays.asList(String.valueOf(maxMessages), requeueWaited ? "1" : "0", String.valueOf(processingTimeoutSeconds),
+            consumerId));
+    return moved instanceof List ? (List<String>) moved : Collections.emptyList();
   }
 
   @Override
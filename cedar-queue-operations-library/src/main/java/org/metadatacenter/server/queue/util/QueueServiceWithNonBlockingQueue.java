@@ -26,8 +26,8 @@ public abstract class QueueServiceWithNonBlockingQueue extends QueueService {
       log.info("Closing nonBlocking queue");
       nonBlockingQueue.close();
     }
-    log.info("Closing pool");
-    pool.close();
+    log.info("Releasing pool");
+    SharedJedisPools.release(pool);
     log.info("Closed");
   }
 
@@ -0,0 +1,81 @@
+package org.metadatacenter.server.queue.util;
+
+import org.metadatacenter.config.CacheServerPersistent;
+import org.metadatacenter.util.EnvUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One JedisPool per Redis endpoint, shared by all the queue services of the process. A pool is closed when the last
+ * service using it is closed. The pool sizes and the wait for a connection are read from the environment, the idle
+ * limits accept 0.
+ */
+public final class SharedJedisPools {
+
+  private static final Logger log = LoggerFactory.getLogger(SharedJedisPools.class);
+
+  public static final int DEFAULT_MAX_TOTAL = 64;
+  public static final int DEFAULT_MAX_IDLE = 16;
+  public static final int DEFAULT_MIN_IDLE = 2;
+  public static final long DEFAULT_MAX_WAIT_MILLIS = 2000;
+  public static final long EVICTION_RUN_INTERVAL_MILLIS = 30000;
+
+  public static final String MAX_TOTAL_VARIABLE = "CEDAR_REDIS_POOL_MAX_TOTAL";
+  public static final String MAX_IDLE_VARIABLE = "CEDAR_REDIS_POOL_MAX_IDLE";
+  public static final String MIN_IDLE_VARIABLE = "CEDAR_REDIS_POOL_MIN_IDLE";
+  public static final String MAX_WAIT_MILLIS_VARIABLE = "CEDAR_REDIS_POOL_MAX_WAIT_MILLIS";
+
+  private static final Map<String, JedisPool> pools = new HashMap<>();
+  private static final Map<JedisPool, Integer> usages = new HashMap<>();
+
+  private SharedJedisPools() {
+  }
+
+  public static synchronized JedisPool acquire(CacheServerPersistent cacheConfig) {
+    String host = cacheConfig.getConnection().getHost();
+    int port = cacheConfig.getConnection().getPort();
+    String endpoint = host + ":" + port;
+    JedisPool pool = pools.get(endpoint);
+    if (pool == null || pool.isClosed()) {
+      log.info("Creating Redis connection pool for " + endpoint);
+      pool = new JedisPool(buildPoolConfig(), host, port, cacheConfig.getConnection().getTimeout());
+      pools.put(endpoint, pool);
+      usages.put(pool, 0);
+    }
+    usages.merge(pool, 1, Integer::sum);
+    return pool;
+  }
+
+  public static synchronized void release(JedisPool pool) {
+    Integer count = usages.get(pool);
+    if (count == null) {
+      return;
+    }
+    if (count > 1) {
+      usages.put(pool, count - 1);
+    } else {
+      usages.remove(pool);
+      pools.values().remove(pool);
+      log.info("Closing Redis connection pool");
+      pool.close();
+    }
+  }
+
+  private static JedisPoolConfig buildPoolConfig() {
+    JedisPoolConfig poolConfig = new JedisPoolConfig();
+    poolConfig.setMaxTotal((int) EnvUtil.readPositiveLong(MAX_TOTAL_VARIABLE, DEFAULT_MAX_TOTAL));
+    poolConfig.setMaxIdle((int) EnvUtil.readNonNegativeLong(MAX_IDLE_VARIABLE, DEFAULT_MAX_IDLE));
+    poolConfig.setMinIdle((int) EnvUtil.readNonNegativeLong(MIN_IDLE_VARIABLE, DEFAULT_MIN_IDLE));
+    poolConfig.setMaxWaitMillis(EnvUtil.readPositiveLong(MAX_WAIT_MILLIS_VARIABLE, DEFAULT_MAX_WAIT_MILLIS));
+    poolConfig.setBlockWhenExhausted(true);
+    poolConfig.setTestOnBorrow(true);
+    poolConfig.setTestWhileIdle(true);
+    poolConfig.setTimeBetweenEvictionRunsMillis(EVICTION_RUN_INTERVAL_MILLIS);
+    return poolConfig;
+  }
+}
@@ -6,50 +6,55 @@ import org.metadatacenter.model.BiboStatus;
 import org.metadatacenter.outcome.OutcomeWithReason;
 import org.metadatacenter.permission.currentuserpermission.CurrentUserPermissionUpdater;
 import org.metadatacenter.search.IndexedDocumentDocument;
-import org.metadatacenter.server.security.model.auth.CedarNodeMaterializedPermissions;
 import org.metadatacenter.server.security.model.auth.CedarPermission;
 import org.metadatacenter.server.security.model.permission.resource.FilesystemResourcePermission;
 import org.metadatacenter.server.security.model.user.CedarUser;
 
-import java.util.List;
+import java.util.Set;
 
 public abstract class AbstractCurrentUserPermissionUpdaterForSearch extends CurrentUserPermissionUpdater {
 
   protected final IndexedDocumentDocument indexedDocument;
   protected final CedarUser cedarUser;
   protected final CedarConfig cedarConfig;
+  protected final CurrentUserSearchPermissions userPermissions;
 
+  private Set<FilesystemResourcePermission> documentPermissions;
 
   protected AbstractCurrentUserPermissionUpdaterForSearch(IndexedDocumentDocument indexedDocument,
                                                           CedarUser cedarUser, CedarConfig cedarConfig) {
+    this(indexedDocument, CurrentUserSearchPermissions.of(cedarUser), cedarConfig);
+  }
+
+  protected AbstractCurrentUserPermissionUpdaterForSearch(IndexedDocumentDocument indexedDocument,
+                                                          CurrentUserSearchPermissions userPermissions,
+                                                          CedarConfig cedarConfig) {
     this.indexedDocument = indexedDocument;
-    this.cedarUser = cedarUser;
+    this.cedarUser = userPermissions.getCedarUser();
     this.cedarConfig = cedarConfig;
+    this.userPermissions = userPermissions;
   }
 
   protected boolean userCanWrite() {
-    if (cedarUser.has(CedarPermission.UPDATE_PERMISSION_NOT_WRITABLE_NODE)) {
+    if (userPermissions.canWriteAll()) {
       return true;
     }
-    return containsPermissions(indexedDocument.getUsers(), FilesystemResourcePermission.WRITE);
+    return getDocumentPermissions().contains(FilesystemResourcePermission.WRITE);
   }
 
   protected boolean userCanRead() {
-    if (cedarUser.has(CedarPermission.READ_NOT_READABLE_NODE)) {
+    if (userPermissions.canReadAll()) {
       return true;
     }
-    return containsPermissions(indexedDocument.getUsers(), FilesystemResourcePermission.READ);
+    return getDocumentPermissions().contains(FilesystemResourcePermission.READ);
   }
 
-  protected boolean containsPermissions(List<String> users, FilesystemResourcePermission permission) {
-    //TODO: Optimize this, use map instead
-    String lookup = CedarNodeMaterializedPermissions.getKey(cedarUser.getId(), permission);
-    for (String pair : users) {
-      if (pair.equals(lookup)) {
-        return true;
-      }
+  // The users of the document are scanned at most once, however many checks the updater makes
+  private Set<FilesystemResourcePermission> getDocumentPermissions() {
+    if (documentPermissions == null) {
+      documentPermissions = userPermissions.findPermissions(indexedDocument.getUsers());
     }
-    return false;
+    return documentPermissions;
   }
 
   protected boolean userCanChangeOwnerOfFolder() {
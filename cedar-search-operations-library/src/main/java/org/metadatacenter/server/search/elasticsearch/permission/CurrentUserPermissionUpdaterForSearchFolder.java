@@ -19,6 +19,20 @@ public class CurrentUserPermissionUpdaterForSearchFolder extends AbstractCurrent
     return new CurrentUserPermissionUpdaterForSearchFolder(indexedDocument, cedarUser, cedarConfig);
   }
 
+  private CurrentUserPermissionUpdaterForSearchFolder(IndexedDocumentDocument indexedDocument,
+                                                      CurrentUserSearchPermissions userPermissions, CedarConfig cedarConfig) {
+    super(indexedDocument, userPermissions, cedarConfig);
+  }
+
+  /**
+   * Use this variant when evaluating many documents for the same user, the user is only looked at once
+   */
+  public static CurrentUserPermissionUpdater get(IndexedDocumentDocument indexedDocument,
+                                                 CurrentUserSearchPermissions userPermissions,
+                                                 CedarConfig cedarConfig) {
+    return new CurrentUserPermissionUpdaterForSearchFolder(indexedDocument, userPermissions, cedarConfig);
+  }
+
   @Override
   public void update(CurrentUserResourcePermissions currentUserResourcePermissions) {
     if (userCanWrite()) {
@@ -19,6 +19,20 @@ public class CurrentUserPermissionUpdaterForSearchResource extends AbstractCurre
     return new CurrentUserPermissionUpdaterForSearchResource(indexedDocument, cedarUser, cedarConfig);
   }
 
+  private CurrentUserPermissionUpdaterForSearchResource(IndexedDocumentDocument indexedDocument,
+                                                        CurrentUserSearchPermissions userPermissions, CedarConfig cedarConfig) {
+    super(indexedDocument, userPermissions, cedarConfig);
+  }
+
+  /**
+   * Use this variant when evaluating many documents for the same user, the user is only looked at once
+   */
+  public static CurrentUserPermissionUpdater get(IndexedDocumentDocument indexedDocument,
+                                                 CurrentUserSearchPermissions userPermissions,
+                                                 CedarConfig cedarConfig) {
+    return new CurrentUserPermissionUpdaterForSearchResource(indexedDocument, userPermissions, cedarConfig);
+  }
+
   @Override
   public void update(CurrentUserResourcePermissions currentUserResourcePermissions) {
     if (userCanWrite()) {
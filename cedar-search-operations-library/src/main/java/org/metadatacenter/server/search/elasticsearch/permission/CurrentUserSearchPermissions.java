@@ -0,0 +1,68 @@
+package org.metadatacenter.server.search.elasticsearch.permission;
+
+import org.metadatacenter.server.security.model.auth.CedarNodeMaterializedPermissions;
+import org.metadatacenter.server.security.model.auth.CedarPermission;
+import org.metadatacenter.server.security.model.permission.resource.FilesystemResourcePermission;
+import org.metadatacenter.server.security.model.user.CedarUser;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What the current user needs to know to evaluate the materialized permissions of indexed documents. Computed once
+ * per request and shared by the permission updaters of all the search hits.
+ */
+public final class CurrentUserSearchPermissions {
+
+  private final CedarUser cedarUser;
+  private final String readKey;
+  private final String writeKey;
+  private final boolean canReadAll;
+  private final boolean canWriteAll;
+
+  private CurrentUserSearchPermissions(CedarUser cedarUser) {
+    this.cedarUser = cedarUser;
+    this.readKey = CedarNodeMaterializedPermissions.getKey(cedarUser.getId(), FilesystemResourcePermission.READ);
+    this.writeKey = CedarNodeMaterializedPermissions.getKey(cedarUser.getId(), FilesystemResourcePermission.WRITE);
+    this.canReadAll = cedarUser.has(CedarPermission.READ_NOT_READABLE_NODE);
+    this.canWriteAll = cedarUser.has(CedarPermission.UPDATE_PERMISSION_NOT_WRITABLE_NODE);
+  }
+
+  public static CurrentUserSearchPermissions of(CedarUser cedarUser) {
+    return new CurrentUserSearchPermissions(cedarUser);
+  }
+
+  public CedarUser getCedarUser() {
+    return cedarUser;
+  }
+
+  public boolean canReadAll() {
+    return canReadAll;
+  }
+
+  public boolean canWriteAll() {
+    return canWriteAll;
+  }
+
+  /**
+   * Looks up the user in the materialized user permissions of a document in a single pass. The read and the write
+   * entries are reported separately, each one as it is listed in the document, the same way they were checked one by
+   * one before.
+   *
+   * @return the permissions the document lists for the user, empty if none
+   */
+  public Set<FilesystemResourcePermission> findPermissions(List<String> users) {
+    Set<FilesystemResourcePermission> found = EnumSet.noneOf(FilesystemResourcePermission.class);
+    if (users != null) {
+      for (String pair : users) {
+        if (writeKey.equals(pair)) {
+          found.add(FilesystemResourcePermission.WRITE);
+        } else if (readKey.equals(pair)) {
+          found.add(FilesystemResourcePermission.READ);
+        }
+      }
+    }
+    return found;
+  }
+}
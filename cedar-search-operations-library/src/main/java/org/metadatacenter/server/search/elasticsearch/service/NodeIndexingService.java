@@ -25,6 +25,7 @@ import org.metadatacenter.server.CategoryServiceSession;
 import org.metadatacenter.server.FolderServiceSession;
 import org.metadatacenter.server.ResourcePermissionServiceSession;
 import org.metadatacenter.server.search.IndexedDocumentId;
+import org.metadatacenter.server.search.elasticsearch.worker.ElasticsearchBulkIndexer;
 import org.metadatacenter.server.search.elasticsearch.worker.ElasticsearchIndexingWorker;
 import org.metadatacenter.server.search.extraction.TemplateInstanceContentExtractor;
 import org.metadatacenter.server.search.extraction.ValueSetsExtractor;
@@ -36,6 +37,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
+import static org.metadatacenter.constant.ElasticsearchConstants.*;
+
 
 public class NodeIndexingService extends AbstractIndexingService {
 
@@ -64,6 +67,15 @@ public class NodeIndexingService extends AbstractIndexingService {
     }
   }
 
+  public void buildValueSetsSnapshot() throws CedarProcessingException
+  {
+    if (nciCADSRValueSetsOntologyFilePath != null && !nciCADSRValueSetsOntologyFilePath.isEmpty())
+      ValueSetsExtractor.getInstance().buildValueSetsSnapshot(nciCADSRValueSetsOntologyFilePath);
+    else {
+      throw new CedarProcessingException("No path configured for value set ontology");
+    }
+  }
+
   public IndexingDocumentDocument createIndexDocument(FileSystemResource node, CedarNodeMaterializedPermissions permissions,
                                                       CedarNodeMaterializedCategories categories, CedarRequestContext requestContext,
                                                       boolean isIndexRegenerationTask) throws CedarProcessingException {
@@ -148,12 +160,60 @@ public class NodeIndexingService extends AbstractIndexingService {
                                          CedarNodeMaterializedCategories categories, CedarRequestContext requestContext,
                                          boolean isIndexRegenerationTask) throws CedarProcessingException {
     log.debug("Indexing resource (id = " + resource.getId() + ")");
+    if (!isIndexRegenerationTask && resource.getType() == CedarResourceType.TEMPLATE) {
+      // The template may have changed, its instances must be extracted against the new version
+      instanceContentExtractor.invalidateTemplateNodes(resource.getId());
+    }
     IndexingDocumentDocument ir = createIndexDocument(resource, permissions, categories, requestContext,
         isIndexRegenerationTask);
     JsonNode jsonResource = JsonMapper.MAPPER.convertValue(ir, JsonNode.class);
     return indexWorker.addToIndex(jsonResource);
   }
 
+  /**
+   * Rewrites the permission fields of the indexed documents of several resources with one lookup and one bulk
+   * request.
+   *
+   * @param permissionsById the new permissions, by resource id
+   * @return the ids of the resources that have no document in the index
+   */
+  public Set<String> updateDocumentPermissions(Map<String, CedarNodeMaterializedPermissions> permissionsById) throws
+      CedarProcessingException {
+    log.debug("Updating permissions of " + permissionsById.size() + " resources in index");
+    Map<String, List<String>> documentIdsByResourceId = indexWorker.findDocumentIds(DOCUMENT_CEDAR_ID,
+        permissionsById.keySet());
+    Map<String, Map<String, Object>> fieldsByDocumentId = new HashMap<>();
+    Set<String> notIndexed = new LinkedHashSet<>();
+    for (Map.Entry<String, CedarNodeMaterializedPermissions> entry : permissionsById.entrySet()) {
+      List<String> documentIds = documentIdsByResourceId.get(entry.getKey());
+      if (documentIds == null) {
+        notIndexed.add(entry.getKey());
+      } else {
+        Map<String, Object> fields = getPermissionFields(entry.getKey(), entry.getValue());
+        for (String documentId : documentIds) {
+          fieldsByDocumentId.put(documentId, fields);
+        }
+      }
+    }
+    indexWorker.updateFieldsInBulk(fieldsByDocumentId);
+    return notIndexed;
+  }
+
+  private Map<String, Object> getPermissionFields(String resourceId, CedarNodeMaterializedPermissions permissions) {
+    IndexingDocumentDocument ir = new IndexingDocumentDocument(resourceId);
+    ir.setMaterializedPermissions(permissions);
+    Map<String, Object> document = JsonMapper.MAPPER.convertValue(ir, Map.class);
+    Map<String, Object> fields = new HashMap<>();
+    fields.put(USERS, document.get(USERS));
+    fields.put(GROUPS, document.get(GROUPS));
+    fields.put(COMPUTED_EVERYBODY_PERMISSION, document.get(COMPUTED_EVERYBODY_PERMISSION));
+    return fields;
+  }
+
+  public ElasticsearchBulkIndexer openBulkIndexer(int bulkActions, int concurrentRequests) {
+    return indexWorker.openBulkIndexer(bulkActions, concurrentRequests);
+  }
+
   public void indexBatch(List<IndexingDocumentDocument> currentBatch) {
     indexWorker.addBatch(currentBatch);
   }
@@ -196,12 +256,18 @@ public class NodeIndexingService extends AbstractIndexingService {
   public long removeDocumentFromIndex(CedarFilesystemResourceId resourceId) throws CedarProcessingException {
     if (resourceId != null) {
       log.debug("Removing resource from index (id = " + resourceId + ")");
+      instanceContentExtractor.invalidateTemplateNodes(resourceId.getId());
       return indexWorker.removeAllFromIndex(resourceId);
     } else {
       return -1;
     }
   }
 
+  public long removeDocumentsFromIndex(Collection<String> resourceIds) throws CedarProcessingException {
+    log.debug("Removing " + resourceIds.size() + " resources from index");
+    return indexWorker.removeAllFromIndex(DOCUMENT_CEDAR_ID, resourceIds);
+  }
+
   public long removeDocumentFromIndex(CedarFilesystemResourceId resourceId, boolean retry) throws CedarProcessingException {
     if (!retry) {
       return removeDocumentFromIndex(resourceId);
@@ -218,6 +284,7 @@ public class NodeIndexingService extends AbstractIndexingService {
         return removedCount;
       }
       else {
+        currentTry++;
         log.debug("Could not remove resource from index (id = " + resourceId + ")");
         try {
           Thread.sleep(WAIT_MS);
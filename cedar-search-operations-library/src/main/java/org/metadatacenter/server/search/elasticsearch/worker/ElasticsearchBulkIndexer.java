@@ -0,0 +1,107 @@
+package org.metadatacenter.server.search.elasticsearch.worker;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.xcontent.XContentType;
+import org.metadatacenter.exception.CedarProcessingException;
+import org.metadatacenter.search.IndexingDocumentDocument;
+import org.metadatacenter.util.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous bulk indexing of documents. Documents are sent in bulks of bulkActions, with at most
+ * concurrentRequests bulks in flight; add blocks while that limit is reached, so producers cannot run ahead of the
+ * cluster. Safe to use from several threads.
+ */
+public class ElasticsearchBulkIndexer implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(ElasticsearchBulkIndexer.class);
+
+  private static final long CLOSE_TIMEOUT_MINUTES = 10;
+
+  private final String indexName;
+  private final String documentType;
+  private final BulkProcessor bulkProcessor;
+  private final AtomicLong indexedCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+
+  ElasticsearchBulkIndexer(Client client, String indexName, String documentType, int bulkActions,
+                           int concurrentRequests) {
+    this.indexName = indexName;
+    this.documentType = documentType;
+    this.bulkProcessor = BulkProcessor.builder(client::bulk, new BulkProcessor.Listener() {
+      @Override
+      public void beforeBulk(long executionId, BulkRequest request) {
+        log.debug("Sending bulk " + executionId + " with " + request.numberOfActions() + " documents");
+      }
+
+      @Override
+      public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+        if (response.hasFailures()) {
+          log.error("Failure when processing bulk request:");
+          log.error(response.buildFailureMessage());
+          long failed = 0;
+          for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed()) {
+              failed++;
+            }
+          }
+          failedCount.addAndGet(failed);
+          indexedCount.addAndGet(request.numberOfActions() - failed);
+        } else {
+          indexedCount.addAndGet(request.numberOfActions());
+        }
+      }
+
+      @Override
+      public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+        log.error("Error while sending bulk request " + executionId, failure);
+        failedCount.addAndGet(request.numberOfActions());
+      }
+    })
+        .setBulkActions(bulkActions)
+        .setBulkSize(ByteSizeValue.MINUS_ONE)
+        .setConcurrentRequests(concurrentRequests)
+        .build();
+  }
+
+  public void add(IndexingDocumentDocument document) throws JsonProcessingException {
+    JsonNode jsonResource = JsonMapper.MAPPER.convertValue(document, JsonNode.class);
+    bulkProcessor.add(new IndexRequest(indexName, documentType)
+        .source(JsonMapper.MAPPER.writeValueAsString(jsonResource), XContentType.JSON));
+  }
+
+  public long getIndexedCount() {
+    return indexedCount.get();
+  }
+
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * Flushes the pending documents and waits for all bulks in flight to complete. Fails if they do not complete in
+   * time, the index can not be considered complete in that case. Failed documents are only counted, see
+   * getFailedCount.
+   */
+  @Override
+  public void close() throws InterruptedException, CedarProcessingException {
+    if (!bulkProcessor.awaitClose(CLOSE_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+      throw new CedarProcessingException("Timed out while waiting for the bulk requests to the " + indexName +
+          " index to complete. Indexed so far: " + indexedCount.get() + ", failed: " + failedCount.get());
+    }
+    log.info("Bulk indexing into " + indexName + " done. Indexed: " + indexedCount.get() + ", failed: " +
+        failedCount.get());
+  }
+}
@@ -2,6 +2,7 @@ package org.metadatacenter.server.search.elasticsearch.worker;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
@@ -13,6 +14,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.client.transport.NoNodeAvailableException;
 import org.elasticsearch.index.reindex.DeleteByQueryRequestBuilder;
 import org.elasticsearch.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.DeleteByQueryAction;
@@ -23,11 +25,16 @@ import org.metadatacenter.id.CedarFilesystemResourceId;
 import org.metadatacenter.search.IndexedDocumentType;
 import org.metadatacenter.search.IndexingDocumentDocument;
 import org.metadatacenter.server.search.IndexedDocumentId;
+import org.metadatacenter.util.EnvUtil;
 import org.metadatacenter.util.json.JsonMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.metadatacenter.constant.ElasticsearchConstants.DOCUMENT_CEDAR_ID;
 
@@ -35,14 +42,29 @@ public class ElasticsearchIndexingWorker {
 
   private static final Logger log = LoggerFactory.getLogger(ElasticsearchIndexingWorker.class);
 
+  public static final String REFRESH_AFTER_REMOVE_VARIABLE = "CEDAR_SEARCH_REFRESH_AFTER_REMOVE";
+
+  private static final int DOCUMENTS_PER_VALUE_LOOKUP_FACTOR = 4;
+  private static final int MAX_DOCUMENT_ID_LOOKUP_SIZE = 10000;
+
   private final Client client;
   private final String indexName;
   private final String documentType;
+  private boolean refreshAfterRemove;
 
   public ElasticsearchIndexingWorker(String indexName, Client client) {
     this.client = client;
     this.indexName = indexName;
     this.documentType = IndexedDocumentType.DOC.getValue();
+    this.refreshAfterRemove = EnvUtil.readBoolean(REFRESH_AFTER_REMOVE_VARIABLE, false);
+  }
+
+  /**
+   * Whether the affected shards are refreshed after a delete by query, so the removal is visible to searches
+   * immediately. Defaults to the value of CEDAR_SEARCH_REFRESH_AFTER_REMOVE, or false.
+   */
+  public void setRefreshAfterRemove(boolean refreshAfterRemove) {
+    this.refreshAfterRemove = refreshAfterRemove;
   }
 
   public IndexedDocumentId addToIndex(JsonNode json) throws CedarProcessingException {
@@ -79,32 +101,20 @@ public class ElasticsearchIndexingWorker {
    * Removes from the index all documents that match a given CEDAR artifact id
    *
    * @param resourceId
-   * @return
+   * @return the number of removed documents
    * @throws CedarProcessingException
    */
   public long removeAllFromIndex(CedarFilesystemResourceId resourceId) throws CedarProcessingException {
     log.debug("Removing " + documentType + " cid:" + resourceId + " from the " + indexName + " index");
     try {
-      // Get resources by artifact id
-      // TODO: note that this search query will retrieve only 10 results by default, so the maximum number
-      // of documents that will be removed will be 10. Consider using the "delete by query" API
-      SearchResponse responseSearch = client.prepareSearch(indexName)
-          .setQuery(QueryBuilders.matchQuery(DOCUMENT_CEDAR_ID, resourceId.getId()))
-          .execute().actionGet();
-
-      long removedCount = 0;
-      // Delete by Elasticsearch id
-      for (SearchHit hit : responseSearch.getHits()) {
-        removeFromIndex(hit.getId());
-        removedCount++;
-      }
+      long removedCount = deleteByQuery(QueryBuilders.matchQuery(DOCUMENT_CEDAR_ID, resourceId.getId()),
+          DOCUMENT_CEDAR_ID + "=" + resourceId.getId());
       if (removedCount == 0) {
         log.error("The " + documentType + " cid:" + resourceId.getId() + " was not removed from the " + indexName +
             " index");
       } else {
         log.debug("Removed " + removedCount + " documents of type " + documentType + " cid:" + resourceId.getId() +
-            " from the " + indexName + " " +
-            "index");
+            " from the " + indexName + " index");
       }
       return removedCount;
     } catch (Exception e) {
@@ -117,17 +127,14 @@ public class ElasticsearchIndexingWorker {
    *
    * @param fieldName
    * @param fieldValue
-   * @return
+   * @return the number of removed documents
    * @throws CedarProcessingException
    */
   public long removeAllFromIndex(String fieldName, String fieldValue) throws CedarProcessingException {
     log.debug("Removing from the " + indexName + " index the documents with " + fieldName + "=" + fieldValue);
     try {
-      // Use "delete by query" to delete all documents with fieldName = fieldValue
-      BulkByScrollResponse response = new DeleteByQueryRequestBuilder(client, DeleteByQueryAction.INSTANCE)
-          .filter(QueryBuilders.matchQuery(fieldName, fieldValue)).source(indexName)
-          .get();
-      long removedCount = response.getDeleted();
+      long removedCount = deleteByQuery(QueryBuilders.matchQuery(fieldName, fieldValue),
+          fieldName + "=" + fieldValue);
       if (removedCount == 0) {
         log.error("No documents have been removed from the " + indexName + " index");
       } else {
@@ -139,6 +146,111 @@ public class ElasticsearchIndexingWorker {
     }
   }
 
+  /**
+   * Removes from the index all documents whose fieldName is one of fieldValues
+   *
+   * @param fieldName
+   * @param fieldValues
+   * @return the number of removed documents
+   * @throws CedarProcessingException
+   */
+  public long removeAllFromIndex(String fieldName, Collection<String> fieldValues) throws CedarProcessingException {
+    if (fieldValues.isEmpty()) {
+      return 0;
+    }
+    log.debug("Removing from the " + indexName + " index the documents of " + fieldValues.size() + " " + fieldName +
+        " values");
+    try {
+      long removedCount = deleteByQuery(QueryBuilders.termsQuery(fieldName, fieldValues), fieldName + " in " +
+          fieldValues);
+      log.debug("Removed " + removedCount + " documents from the " + indexName + " index");
+      return removedCount;
+    } catch (Exception e) {
+      throw new CedarProcessingException(e);
+    }
+  }
+
+  // Documents changed concurrently are skipped instead of failing the whole request
+  private long deleteByQuery(QueryBuilder query, String description) throws CedarProcessingException {
+    BulkByScrollResponse response = new DeleteByQueryRequestBuilder(client, DeleteByQueryAction.INSTANCE)
+        .filter(query)
+        .source(indexName)
+        .abortOnVersionConflict(false)
+        .refresh(refreshAfterRemove)
+        .get();
+    if (!response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty()) {
+      throw new CedarProcessingException("Failed to remove the documents with " + description +
+          " from the " + indexName + " index: " + response.getBulkFailures() + " " + response.getSearchFailures());
+    }
+    return response.getDeleted();
+  }
+
+  /**
+   * Looks up the ids of the documents whose fieldName is one of fieldValues, grouped by value. Values with no
+   * document are left out of the result.
+   *
+   * @param fieldName
+   * @param fieldValues
+   * @return the document ids by field value
+   * @throws CedarProcessingException
+   */
+  public Map<String, List<String>> findDocumentIds(String fieldName, Collection<String> fieldValues) throws
+      CedarProcessingException {
+    Map<String, List<String>> documentIds = new HashMap<>();
+    if (fieldValues.isEmpty()) {
+      return documentIds;
+    }
+    try {
+      int size = Math.min(fieldValues.size() * DOCUMENTS_PER_VALUE_LOOKUP_FACTOR, MAX_DOCUMENT_ID_LOOKUP_SIZE);
+      SearchResponse response = client.prepareSearch(indexName)
+          .setQuery(QueryBuilders.termsQuery(fieldName, fieldValues))
+          .setFetchSource(new String[]{fieldName}, null)
+          .setSize(size)
+          .get();
+      for (SearchHit hit : response.getHits().getHits()) {
+        Object value = hit.getSourceAsMap().get(fieldName);
+        if (value != null) {
+          documentIds.computeIfAbsent(value.toString(), k -> new ArrayList<>()).add(hit.getId());
+        }
+      }
+      if (response.getHits().getTotalHits() != null && response.getHits().getTotalHits().value > size) {
+        log.warn("Only " + size + " of " + response.getHits().getTotalHits().value + " documents were looked up in " +
+            "the " + indexName + " index");
+      }
+      return documentIds;
+    } catch (Exception e) {
+      throw new CedarProcessingException(e);
+    }
+  }
+
+  /**
+   * Overwrites the given top-level fields of each document with a single bulk request
+   *
+   * @param fieldsByDocumentId the fields to write, by document id
+   * @return the number of updated documents
+   */
+  public long updateFieldsInBulk(Map<String, Map<String, Object>> fieldsByDocumentId) {
+    if (fieldsByDocumentId.isEmpty()) {
+      return 0;
+    }
+    BulkRequestBuilder bulkRequest = client.prepareBulk();
+    for (Map.Entry<String, Map<String, Object>> entry : fieldsByDocumentId.entrySet()) {
+      bulkRequest.add(client.prepareUpdate(indexName, documentType, entry.getKey()).setDoc(entry.getValue()));
+    }
+    BulkResponse bulkResponse = bulkRequest.get();
+    long updatedCount = fieldsByDocumentId.size();
+    if (bulkResponse.hasFailures()) {
+      log.error("Failure when processing bulk update request:");
+      log.error(bulkResponse.buildFailureMessage());
+      for (BulkItemResponse item : bulkResponse.getItems()) {
+        if (item.isFailed()) {
+          updatedCount--;
+        }
+      }
+    }
+    return updatedCount;
+  }
+
   public void removeFromIndex(String documentId) throws CedarProcessingException {
     DeleteRequestBuilder deleteRequestBuilder = client.prepareDelete(indexName, documentType, documentId);
     DeleteResponse responseDelete = deleteRequestBuilder.execute().actionGet();
@@ -150,6 +262,10 @@ public class ElasticsearchIndexingWorker {
     }
   }
 
+  public ElasticsearchBulkIndexer openBulkIndexer(int bulkActions, int concurrentRequests) {
+    return new ElasticsearchBulkIndexer(client, indexName, documentType, bulkActions, concurrentRequests);
+  }
+
   public void addBatch(List<IndexingDocumentDocument> currentBatch) {
     if (currentBatch != null) {
       BulkRequestBuilder bulkRequest = client.prepareBulk();
@@ -1,5 +1,7 @@
 package org.metadatacenter.server.search.elasticsearch.worker;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
@@ -9,7 +11,6 @@ import org.apache.lucene.search.join.ScoreMode;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
-import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -33,6 +34,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -42,6 +44,30 @@ public class ElasticsearchPermissionEnabledContentSearchingWorker {
 
   private static final Logger log = LoggerFactory.getLogger(ElasticsearchPermissionEnabledContentSearchingWorker.class);
 
+  private static final int DEEP_SEARCH_PAGE_SIZE = 1000;
+  private static final int REWRITTEN_QUERY_CACHE_SIZE = 10000;
+  private static final long REWRITTEN_QUERY_CACHE_EXPIRATION_MINUTES = 60;
+
+  private static final Pattern LEADING_COLON = Pattern.compile("^:");
+  private static final Pattern SPACED_LEADING_COLON = Pattern.compile("\\s+:");
+  private static final Pattern TRAILING_COLON = Pattern.compile(":$");
+  private static final Pattern COLON_FOLLOWED_BY_SPACES = Pattern.compile(":\\s+");
+  private static final Pattern ANY_FIELD_AT_START = Pattern.compile("(^|\\()\\*:");
+  private static final Pattern ANY_FIELD_AFTER_SPACE = Pattern.compile("\\s\\*:");
+  private static final Pattern ANY_VALUE_AT_END = Pattern.compile(":\\*($|\\()");
+  private static final Pattern ANY_VALUE_BEFORE_SPACE = Pattern.compile(":\\*\\s");
+  private static final Pattern URL = Pattern.compile("(((https?)://)" +
+      "(%[0-9A-Fa-f]{2}|[-()_.!~*';/?:@&=+$,A-Za-z0-9])+)" +
+      "([).!';/?:,][[:blank:]])?");
+  private static final Pattern QUOTED_FIELD_NAME = Pattern.compile("\"([^\"]*)\":");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final Pattern FORWARD_SLASH = Pattern.compile("\\/");
+
+  private final Cache<String, QueryBuilder> rewrittenQueryCache = CacheBuilder.newBuilder()
+      .maximumSize(REWRITTEN_QUERY_CACHE_SIZE)
+      .expireAfterAccess(REWRITTEN_QUERY_CACHE_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .build();
+
   private final Client client;
   private final String indexName;
 
@@ -73,39 +99,54 @@ public class ElasticsearchPermissionEnabledContentSearchingWorker {
     return result;
   }
 
-  // It uses the scroll API. It retrieves all results. No pagination and therefore no offset. Scrolling is not
-  // intended for real time user requests, but rather for processing large amounts of data.
-  // More info: https://www.elastic.co/guide/en/elasticsearch/reference/2.3/search-request-scroll.html
+  // Deep paging with search_after: the results are walked in pages sorted by the requested sort plus the cid as a
+  // tiebreak, and every page starts right after the sort values of the last hit of the previous one. Pages that lie
+  // entirely before the offset are read without their source. Unlike the scroll API, no search context is left open
+  // on the cluster.
+  // More info: https://www.elastic.co/guide/en/elasticsearch/reference/7.17/paginate-search-results.html#search-after
   public SearchResponseResult searchDeep(CedarRequestContext rctx, String query, List<String> resourceTypes, ResourceVersionFilter version,
                                          ResourcePublicationStatusFilter publicationStatus, String categoryId, List<String> sortList, int limit,
                                          int offset) throws CedarProcessingException {
 
     SearchRequestBuilder searchRequest = getSearchRequestBuilder(rctx, query, resourceTypes, version, publicationStatus, categoryId, sortList);
-
-    // Set scroll and scroll size
-    TimeValue timeout = TimeValue.timeValueMinutes(2);
-    searchRequest.setScroll(timeout);
-    searchRequest.setSize(offset + limit);
-
-    //log.debug("Search query in Query DSL: " + searchRequest);
-
-    // Execute request
-    SearchResponse response = searchRequest.execute().actionGet();
+    searchRequest.addSort(DOCUMENT_CEDAR_ID, SortOrder.ASC);
+    searchRequest.setTrackTotalHits(true);
 
     SearchResponseResult result = new SearchResponseResult();
-    TotalHits totalHits = response.getHits().getTotalHits();
-    result.setTotalCount(totalHits == null ? 0 : totalHits.value);
+    int skipped = 0;
+    Object[] searchAfter = null;
+    boolean first = true;
+    while (result.getHits().size() < limit) {
+      int remainingToSkip = offset - skipped;
+      boolean skipPage = remainingToSkip >= DEEP_SEARCH_PAGE_SIZE;
+      int pageSize = skipPage ? DEEP_SEARCH_PAGE_SIZE : Math.min(remainingToSkip + limit - result.getHits().size(),
+          DEEP_SEARCH_PAGE_SIZE);
+      searchRequest.setSize(pageSize);
+      searchRequest.setFetchSource(!skipPage);
+      if (searchAfter != null) {
+        searchRequest.searchAfter(searchAfter);
+      }
 
-    int counter = 0;
-    while (response.getHits().getHits().length != 0) {
-      for (SearchHit hit : response.getHits().getHits()) {
-        if (counter >= offset && counter < offset + limit) {
+      // Execute request
+      SearchResponse response = searchRequest.execute().actionGet();
+      if (first) {
+        TotalHits totalHits = response.getHits().getTotalHits();
+        result.setTotalCount(totalHits == null ? 0 : totalHits.value);
+        first = false;
+      }
+
+      SearchHit[] hits = response.getHits().getHits();
+      for (SearchHit hit : hits) {
+        if (skipped < offset) {
+          skipped++;
+        } else if (result.getHits().size() < limit) {
           result.add(hit);
         }
-        counter++;
       }
-      //next scroll
-      response = client.prepareSearchScroll(response.getScrollId()).setScroll(timeout).execute().actionGet();
+      if (hits.length < pageSize) {
+        break;
+      }
+      searchAfter = hits[hits.length - 1].getSortValues();
     }
     return result;
   }
@@ -122,18 +163,7 @@ public class ElasticsearchPermissionEnabledContentSearchingWorker {
     BoolQueryBuilder mainQuery = QueryBuilders.boolQuery();
 
     if (query != null && query.length() > 0) {
-
-      query = preprocessQuery(query);
-
-      // Parse the query and rewrite it to query the right index fields. The whitespace analyzer divides text into
-      // terms whenever it encounters any whitespace character. It does not lowercase terms.
-      QueryParser parser = new QueryParser("", new WhitespaceAnalyzer());
-      try {
-        Query queryParsed = parser.parse(query);
-        mainQuery.must(rewriteQuery(queryParsed));
-      } catch (ParseException e) {
-        throw new CedarProcessingException("Error processing query: " + query, e);
-      }
+      mainQuery.must(getRewrittenQuery(query));
     }
 
     String userId = rctx.getCedarUser().getId();
@@ -231,6 +261,30 @@ public class ElasticsearchPermissionEnabledContentSearchingWorker {
     return searchRequestBuilder;
   }
 
+  /**
+   * Returns the index query for a search string. The rewritten queries are cached by the raw search string, since
+   * the same searches come up over and over. The cached builders are shared, they must not be modified.
+   */
+  private QueryBuilder getRewrittenQuery(String rawQuery) throws CedarProcessingException {
+    QueryBuilder cached = rewrittenQueryCache.getIfPresent(rawQuery);
+    if (cached != null) {
+      return cached;
+    }
+    String query = preprocessQuery(rawQuery);
+
+    // Parse the query and rewrite it to query the right index fields. The whitespace analyzer divides text into
+    // terms whenever it encounters any whitespace character. It does not lowercase terms.
+    QueryParser parser = new QueryParser("", new WhitespaceAnalyzer());
+    try {
+      Query queryParsed = parser.parse(query);
+      QueryBuilder rewritten = rewriteQuery(queryParsed);
+      rewrittenQueryCache.put(rawQuery, rewritten);
+      return rewritten;
+    } catch (ParseException e) {
+      throw new CedarProcessingException("Error processing query: " + query, e);
+    }
+  }
+
   private boolean enclosedByQuotes(String keyword) {
     return keyword.startsWith("\"") && keyword.endsWith("\"");
   }
@@ -409,19 +463,19 @@ public class ElasticsearchPermissionEnabledContentSearchingWorker {
     /**
      * Insert a star if missing for the cases t1: and :t1
      */
-    processedQuery = processedQuery.replaceAll("^:", "*:");
-    processedQuery = processedQuery.replaceAll("\\s+:", " *:");
-    processedQuery = processedQuery.replaceAll(":$", ":*");
-    processedQuery = processedQuery.replaceAll(":\\s+", ":* ");
+    processedQuery = LEADING_COLON.matcher(processedQuery).replaceAll("*:");
+    processedQuery = SPACED_LEADING_COLON.matcher(processedQuery).replaceAll(" *:");
+    processedQuery = TRAILING_COLON.matcher(processedQuery).replaceAll(":*");
+    processedQuery = COLON_FOLLOWED_BY_SPACES.matcher(processedQuery).replaceAll(":* ");
 
 
     /**
      * Replace stars by '_any_' for the cases *:v1, f1:*, and *:*
      */
-    processedQuery = processedQuery.replaceAll("(^|\\()\\*:", ANY_STRING + ":");
-    processedQuery = processedQuery.replaceAll("\\s\\*:", ANY_STRING + " :");
-    processedQuery = processedQuery.replaceAll(":\\*($|\\()", ":" + ANY_STRING);
-    processedQuery = processedQuery.replaceAll(":\\*\\s", ":" + ANY_STRING + " ");
+    processedQuery = ANY_FIELD_AT_START.matcher(processedQuery).replaceAll(ANY_STRING + ":");
+    processedQuery = ANY_FIELD_AFTER_SPACE.matcher(processedQuery).replaceAll(ANY_STRING + " :");
+    processedQuery = ANY_VALUE_AT_END.matcher(processedQuery).replaceAll(":" + ANY_STRING);
+    processedQuery = ANY_VALUE_BEFORE_SPACE.matcher(processedQuery).replaceAll(":" + ANY_STRING + " ");
 
     /**
      * Encode stars and question marks embedded into fieldName and/or fieldValue
@@ -445,11 +499,7 @@ public class ElasticsearchPermissionEnabledContentSearchingWorker {
    */
   private String encodeUrls(String query) throws CedarProcessingException {
 
-    final String URL_REGEX = "(((https?)://)" +
-        "(%[0-9A-Fa-f]{2}|[-()_.!~*';/?:@&=+$,A-Za-z0-9])+)" +
-        "([).!';/?:,][[:blank:]])?";
-
-    Matcher matcher = Pattern.compile(URL_REGEX).matcher(query);
+    Matcher matcher = URL.matcher(query);
     String processedQuery = query;
     while (matcher.find()) {
       String matchString = query.substring(matcher.start(), matcher.end());
@@ -477,21 +527,21 @@ public class ElasticsearchPermissionEnabledContentSearchingWorker {
     //    Match 1: "studyidA":
     //    Match 2: "studyid B":
     //    Match 3: "study id C":
-    Matcher matcherQuotesFieldName = Pattern.compile("\"([^\"]*)\":").matcher(query);
+    Matcher matcherQuotesFieldName = QUOTED_FIELD_NAME.matcher(query);
     String processedQuery = query;
     while (matcherQuotesFieldName.find()) {
       String matchString = query.substring(matcherQuotesFieldName.start(), matcherQuotesFieldName.end());
       // Escape quotes
       String replacement = matchString.replace("\"", "\\\"");
       // Escape white spaces (if there are any). Example: \"study id\": -> \"study\ id\"
-      replacement = replacement.replaceAll("\\s+", "\\\\ ");
+      replacement = WHITESPACE.matcher(replacement).replaceAll("\\\\ ");
       processedQuery = processedQuery.replace(matchString, replacement);
     }
     return processedQuery;
   }
 
   private String removeForwardSlashes(String query) {
-    return query.replaceAll("\\/", "");
+    return FORWARD_SLASH.matcher(query).replaceAll("");
   }
 
   /**
@@ -44,21 +44,36 @@ public class ElasticsearchSearchingWorker {
         .setFetchSource(new String[]{fieldName}, null)
         .setScroll(keepAlive).setQuery(queryBuilder).setSize(config.getSize());
     SearchResponse response = searchRequest.execute().actionGet();
-    // Scroll until no hits are returned
-    do {
-      for (SearchHit hit : response.getHits().getHits()) {
-        Map<String, Object> f = hit.getSourceAsMap();
-        String[] pathFragments = fieldName.split("\\.");
-        for (int i = 0; i < pathFragments.length - 1; i++) {
-          f = (Map<String, Object>) f.get(pathFragments[0]);
+    String scrollId = response.getScrollId();
+    try {
+      // Scroll until no hits are returned
+      while (response.getHits().getHits().length != 0) {
+        for (SearchHit hit : response.getHits().getHits()) {
+          Map<String, Object> f = hit.getSourceAsMap();
+          String[] pathFragments = fieldName.split("\\.");
+          for (int i = 0; i < pathFragments.length - 1; i++) {
+            f = (Map<String, Object>) f.get(pathFragments[0]);
+          }
+          String fieldValue = (String) f.get(pathFragments[pathFragments.length - 1]);
+          fieldValues.add(fieldValue);
         }
-        String fieldValue = (String) f.get(pathFragments[pathFragments.length - 1]);
-        fieldValues.add(fieldValue);
+        response = client.prepareSearchScroll(scrollId).setScroll(keepAlive).execute().actionGet();
+        scrollId = response.getScrollId();
       }
-      response = client.prepareSearchScroll(response.getScrollId()).setScroll(keepAlive)
-          .execute().actionGet();
-      // Break condition: No hits are returned
-    } while (response.getHits().getHits().length != 0);
+    } finally {
+      clearScroll(scrollId);
+    }
     return fieldValues;
   }
+
+  // Frees the scroll context right away instead of leaving it to the keep-alive
+  private void clearScroll(String scrollId) {
+    if (scrollId != null) {
+      try {
+        client.prepareClearScroll().addScrollId(scrollId).execute().actionGet();
+      } catch (Exception e) {
+        log.warn("Error while clearing scroll", e);
+      }
+    }
+  }
 }
@@ -1,9 +1,7 @@
 package org.metadatacenter.server.search.extraction;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import org.apache.commons.lang.CharEncoding;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
 import org.apache.http.util.EntityUtils;
 import org.metadatacenter.config.CedarConfig;
 import org.metadatacenter.constant.HttpConstants;
@@ -16,7 +14,7 @@ import org.metadatacenter.util.json.JsonMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Utilities used to extract information from CEDAR artifacts
@@ -36,21 +34,26 @@ public class ExtractionUtils {
     String url =
         cedarConfig.getMicroserviceUrlUtil().getArtifact().getResourceType(nodeType) + "/"
             + CedarUrlUtil.urlEncode(artifactId);
-    HttpResponse proxyResponse = ProxyUtil.proxyGet(url, requestContext);
-    HttpEntity entity = proxyResponse.getEntity();
-    if (proxyResponse.getStatusLine().getStatusCode() == HttpConstants.OK && entity != null) {
-      String artifactString = null;
-      JsonNode artifactJson = null;
-      try {
-        artifactString = EntityUtils.toString(entity, CharEncoding.UTF_8);
-        artifactJson = JsonMapper.MAPPER.readTree(artifactString);
-      } catch (IOException e) {
-        throw new CedarProcessingException("Error when reading artifact as Json: " + artifactId);
-      }
-      return artifactJson;
-    } else {
+    JsonNode artifactJson;
+    try {
+      // The artifact is parsed straight from the response stream, without being buffered as a String first
+      artifactJson = ProxyUtil.proxyGet(url, requestContext, response -> {
+        HttpEntity entity = response.getEntity();
+        if (response.getStatusLine().getStatusCode() == HttpConstants.OK && entity != null) {
+          try (InputStream content = entity.getContent()) {
+            return JsonMapper.MAPPER.readTree(content);
+          }
+        }
+        EntityUtils.consume(entity);
+        return null;
+      });
+    } catch (CedarProcessingException e) {
+      throw new CedarProcessingException("Error when reading artifact as Json: " + artifactId, e);
+    }
+    if (artifactJson == null) {
       throw new CedarProcessingException("Error when retrieving artifact: " + artifactId);
     }
+    return artifactJson;
   }
 
 }
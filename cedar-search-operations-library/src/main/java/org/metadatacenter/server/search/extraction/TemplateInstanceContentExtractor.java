@@ -1,6 +1,9 @@
 package org.metadatacenter.server.search.extraction;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.metadatacenter.config.CedarConfig;
 import org.metadatacenter.exception.CedarProcessingException;
 import org.metadatacenter.model.CedarResourceType;
@@ -9,6 +12,7 @@ import org.metadatacenter.rest.context.CedarRequestContext;
 import org.metadatacenter.search.InfoField;
 import org.metadatacenter.server.search.extraction.model.FieldValue;
 import org.metadatacenter.server.search.extraction.model.TemplateNode;
+import org.metadatacenter.util.EnvUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,10 +20,13 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.metadatacenter.model.ModelNodeNames.JSON_LD_ID;
 import static org.metadatacenter.model.ModelNodeNames.JSON_LD_VALUE;
@@ -35,15 +42,28 @@ public class TemplateInstanceContentExtractor {
 
   private ExtractionUtils extractionUtils;
   private TemplateContentExtractor templateContentExtractor;
+  public static final long DEFAULT_TEMPLATE_NODES_CACHE_MAXIMUM_SIZE = 1000;
+  public static final long DEFAULT_TEMPLATE_NODES_CACHE_TTL_SECONDS = 600;
+
+  public static final String TEMPLATE_NODES_CACHE_MAXIMUM_SIZE_VARIABLE = "CEDAR_TEMPLATE_NODES_CACHE_MAXIMUM_SIZE";
+  public static final String TEMPLATE_NODES_CACHE_TTL_SECONDS_VARIABLE = "CEDAR_TEMPLATE_NODES_CACHE_TTL_SECONDS";
+
   /**
-   * Cache of template nodes, which is used to avoid retrieving and parsing the same template multiple times.
+   * Cache of template nodes by template id, which is used to avoid retrieving and parsing the same template multiple
+   * times (once per template instance). It is shared by all the extractors, and is used both by the incremental
+   * indexing and by the index regeneration. Updated templates are invalidated explicitly, the TTL covers updates made
+   * through other processes. A value of 0 for either setting disables the cache.
    */
-  private HashMap<String, HashMap<String, TemplateNode>> templateNodesCache;
+  private static final Cache<String, Map<String, TemplateNode>> templateNodesCache = CacheBuilder.newBuilder()
+      .maximumSize(EnvUtil.readNonNegativeLong(TEMPLATE_NODES_CACHE_MAXIMUM_SIZE_VARIABLE,
+          DEFAULT_TEMPLATE_NODES_CACHE_MAXIMUM_SIZE))
+      .expireAfterWrite(EnvUtil.readNonNegativeLong(TEMPLATE_NODES_CACHE_TTL_SECONDS_VARIABLE,
+          DEFAULT_TEMPLATE_NODES_CACHE_TTL_SECONDS), TimeUnit.SECONDS)
+      .build();
 
   public TemplateInstanceContentExtractor(CedarConfig cedarConfig) {
     this.extractionUtils = new ExtractionUtils(cedarConfig);
     this.templateContentExtractor = new TemplateContentExtractor();
-    this.templateNodesCache = new HashMap<>();
   }
 
   /**
@@ -122,23 +142,16 @@ public class TemplateInstanceContentExtractor {
           folderServerNode.getType(), requestContext);
       String templateId = templateInstance.get(SCHEMA_IS_BASED_ON).asText();
 
-      HashMap<String, TemplateNode> nodesMap = null;
-      // If it's an index regeneration task the cache will be needed to avoid retrieving and parsing the same
-      // template multiple times (once per template instance). If the cache contains the template nodes, return them
-      if (isIndexRegenerationTask && templateNodesCache.containsKey(templateId)) {
-        nodesMap = templateNodesCache.get(templateId);
-      }
-      // Otherwise, retrieve the template and parse it
-      else {
-        JsonNode template = extractionUtils.getArtifactById(templateId, CedarResourceType.TEMPLATE, requestContext);
-        List<TemplateNode> templateNodes = templateContentExtractor.getTemplateNodes(template, CedarResourceType.TEMPLATE);
-        nodesMap = new HashMap<>();
-        for (TemplateNode node : templateNodes) {
-          nodesMap.put(node.generatePathDotNotation(), node);
-        }
-        if (isIndexRegenerationTask) {
-          templateNodesCache.put(templateId, nodesMap);
+      // If the cache contains the template nodes, use them. Otherwise, retrieve the template and parse it. Concurrent
+      // requests for the same template wait for a single load.
+      Map<String, TemplateNode> nodesMap;
+      try {
+        nodesMap = templateNodesCache.get(templateId, () -> loadTemplateNodes(templateId, requestContext));
+      } catch (ExecutionException | UncheckedExecutionException e) {
+        if (e.getCause() instanceof CedarProcessingException) {
+          throw (CedarProcessingException) e.getCause();
         }
+        throw new CedarProcessingException(e.getCause());
       }
 
       List<FieldValue> fieldValues = getFieldValues(templateInstance, nodesMap, null, null);
@@ -222,7 +235,7 @@ public class TemplateInstanceContentExtractor {
    * @return
    * @throws CedarProcessingException
    */
-  private List<FieldValue> getFieldValues(JsonNode currentNode, HashMap<String, TemplateNode> templateNodesMap,
+  private List<FieldValue> getFieldValues(JsonNode currentNode, Map<String, TemplateNode> templateNodesMap,
                                           List<String> currentPath, List<FieldValue> results) throws CedarProcessingException {
 
     if (currentPath == null) {
@@ -308,8 +321,23 @@ public class TemplateInstanceContentExtractor {
     return fieldValue;
   }
 
+  private Map<String, TemplateNode> loadTemplateNodes(String templateId, CedarRequestContext requestContext)
+      throws CedarProcessingException {
+    JsonNode template = extractionUtils.getArtifactById(templateId, CedarResourceType.TEMPLATE, requestContext);
+    List<TemplateNode> templateNodes = templateContentExtractor.getTemplateNodes(template, CedarResourceType.TEMPLATE);
+    Map<String, TemplateNode> nodesMap = new HashMap<>();
+    for (TemplateNode node : templateNodes) {
+      nodesMap.put(node.generatePathDotNotation(), node);
+    }
+    return Collections.unmodifiableMap(nodesMap);
+  }
+
+  public void invalidateTemplateNodes(String templateId) {
+    templateNodesCache.invalidate(templateId);
+  }
+
   public void clearNodesCache() {
-    this.templateNodesCache.clear();
+    templateNodesCache.invalidateAll();
     log.info("The template nodes cache has been cleared");
   }
 
@@ -21,7 +21,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.Collections;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -57,15 +60,16 @@ public class ValueSetsExtractor
 
   private final Logger logger = LoggerFactory.getLogger(ValueSetsExtractor.class);
 
-  private Map<String, Set<String>> classHierarchy = new HashMap<>();
-  private Map<Annotation, Map<String, String>> annotations = new HashMap<>();
+  public static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
 
-  private static ValueSetsExtractor singleInstance;
+  private static final ValueSetsExtractor singleInstance = new ValueSetsExtractor();
+
+  // Replaced as a whole once a new ontology has been loaded, so readers never see a partially built hierarchy
+  private volatile ValueSetsSnapshot snapshot = ValueSetsSnapshot.EMPTY;
+  private String loadedOntologyFilePath;
+  private long loadedOntologyLastModified;
 
   public static ValueSetsExtractor getInstance() {
-    if (singleInstance == null) {
-      singleInstance = new ValueSetsExtractor();
-    }
     return singleInstance;
   }
 
@@ -73,41 +77,96 @@ public class ValueSetsExtractor
   {
   }
 
+  /**
+   * Loads the value sets from the snapshot next to the ontology file if it is up to date. Otherwise parses the OWL
+   * ontology and writes a new snapshot for the next start. Does nothing if this version of the ontology is already
+   * loaded.
+   */
   public synchronized void loadValueSetsOntology(String ontologyFilePath) throws CedarProcessingException
+  {
+    File ontologyFile = new File(ontologyFilePath);
+    long lastModified = ontologyFile.lastModified();
+    if (ontologyFilePath.equals(loadedOntologyFilePath) && lastModified == loadedOntologyLastModified) {
+      logger.info("OWL value sets ontology " + ontologyFilePath + " already loaded");
+      return;
+    }
+
+    Path snapshotFile = Paths.get(ontologyFilePath + SNAPSHOT_FILE_SUFFIX);
+    ValueSetsSnapshot loaded = null;
+    if (Files.exists(snapshotFile)) {
+      try {
+        logger.info("Reading value sets snapshot " + snapshotFile + " ...");
+        loaded = ValueSetsSnapshot.read(snapshotFile, lastModified);
+      } catch (IOException e) {
+        logger.info("Value sets snapshot can not be used, the ontology will be parsed: " + e.getMessage());
+      }
+    }
+    if (loaded == null) {
+      loaded = parseValueSetsOntology(ontologyFile);
+      writeSnapshot(loaded, snapshotFile, lastModified);
+    }
+
+    snapshot = loaded;
+    loadedOntologyFilePath = ontologyFilePath;
+    loadedOntologyLastModified = lastModified;
+    logger.info("Finished loading value sets ontology");
+  }
+
+  /**
+   * Parses the OWL ontology and replaces its snapshot, even if the existing one is up to date
+   */
+  public synchronized void buildValueSetsSnapshot(String ontologyFilePath) throws CedarProcessingException
+  {
+    File ontologyFile = new File(ontologyFilePath);
+    long lastModified = ontologyFile.lastModified();
+    ValueSetsSnapshot built = parseValueSetsOntology(ontologyFile);
+    writeSnapshot(built, Paths.get(ontologyFilePath + SNAPSHOT_FILE_SUFFIX), lastModified);
+
+    snapshot = built;
+    loadedOntologyFilePath = ontologyFilePath;
+    loadedOntologyLastModified = lastModified;
+  }
+
+  private ValueSetsSnapshot parseValueSetsOntology(File ontologyFile) throws CedarProcessingException
   {
     try {
       OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
-      logger.info("Reading OWL value sets ontology " + ontologyFilePath + " ...");
-      OWLOntology ontology = manager.loadOntologyFromOntologyDocument(new File(ontologyFilePath));
+      logger.info("Reading OWL value sets ontology " + ontologyFile + " ...");
+      OWLOntology ontology = manager.loadOntologyFromOntologyDocument(ontologyFile);
 
-      classHierarchy = getClassHierarchy(ontology);
-      annotations = getAnnotations(ontology);
+      ValueSetsSnapshot parsed = new ValueSetsSnapshot(getClassHierarchy(ontology), getAnnotations(ontology));
 
       logger.info("Finished processing OWL value sets ontology");
+      return parsed;
     } catch (OWLOntologyCreationException e) {
       throw new CedarProcessingException("Error while reading OWL value sets ontology: " + e);
     }
   }
 
+  // The snapshot is an optimization only, the parsed ontology is used even if it can not be saved
+  private void writeSnapshot(ValueSetsSnapshot valueSetsSnapshot, Path snapshotFile, long sourceLastModified)
+  {
+    try {
+      valueSetsSnapshot.write(snapshotFile, sourceLastModified);
+      logger.info("Value sets snapshot written to " + snapshotFile);
+    } catch (IOException e) {
+      logger.warn("Unable to write value sets snapshot " + snapshotFile + ": " + e.getMessage());
+    }
+  }
+
   public Set<String> getBaseClassURIs()
   {
-    return classHierarchy.keySet();
+    return snapshot.getBaseClassURIs();
   }
 
   public Set<String> getSubClassURIs(String superclassURI)
   {
-    if (classHierarchy.containsKey(superclassURI))
-      return classHierarchy.get(superclassURI);
-    else
-      return Collections.EMPTY_SET;
+    return snapshot.getSubClassURIs(superclassURI);
   }
 
   public Optional<String> getAnnotation(String classURI, Annotation annotation)
   {
-    if (annotations.containsKey(annotation) && annotations.get(annotation).containsKey(classURI))
-      return Optional.of(annotations.get(annotation).get(classURI));
-    else
-      return Optional.empty();
+    return Optional.ofNullable(snapshot.getAnnotation(classURI, annotation));
   }
 
   private Map<String, Set<String>> getClassHierarchy(OWLOntology ontology)
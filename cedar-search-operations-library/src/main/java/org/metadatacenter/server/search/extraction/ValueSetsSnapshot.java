@@ -0,0 +1,183 @@
+package org.metadatacenter.server.search.extraction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of the value sets ontology: the class hierarchy and the class annotations. It can be saved to and
+ * loaded from a compact binary file, so the OWL ontology only needs to be parsed when it changes.
+ * <p>
+ * File layout: magic, format version, last modified time of the source ontology, a table of all distinct strings,
+ * then the hierarchy and the annotations as indexes into that table.
+ */
+final class ValueSetsSnapshot {
+
+  private static final int MAGIC = 0x43565353;
+  private static final int FORMAT_VERSION = 1;
+
+  static final ValueSetsSnapshot EMPTY = new ValueSetsSnapshot(Collections.emptyMap(), Collections.emptyMap());
+
+  private final Map<String, Set<String>> classHierarchy;
+  private final Map<ValueSetsExtractor.Annotation, Map<String, String>> annotations;
+
+  ValueSetsSnapshot(Map<String, Set<String>> classHierarchy,
+                    Map<ValueSetsExtractor.Annotation, Map<String, String>> annotations) {
+    Map<String, Set<String>> hierarchyCopy = new HashMap<>();
+    for (Map.Entry<String, Set<String>> entry : classHierarchy.entrySet()) {
+      hierarchyCopy.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<>(entry.getValue())));
+    }
+    Map<ValueSetsExtractor.Annotation, Map<String, String>> annotationsCopy =
+        new EnumMap<>(ValueSetsExtractor.Annotation.class);
+    for (Map.Entry<ValueSetsExtractor.Annotation, Map<String, String>> entry : annotations.entrySet()) {
+      annotationsCopy.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+    }
+    this.classHierarchy = Collections.unmodifiableMap(hierarchyCopy);
+    this.annotations = Collections.unmodifiableMap(annotationsCopy);
+  }
+
+  Set<String> getBaseClassURIs() {
+    return classHierarchy.keySet();
+  }
+
+  Set<String> getSubClassURIs(String superclassURI) {
+    return classHierarchy.getOrDefault(superclassURI, Collections.emptySet());
+  }
+
+  String getAnnotation(String classURI, ValueSetsExtractor.Annotation annotation) {
+    Map<String, String> values = annotations.get(annotation);
+    return values == null ? null : values.get(classURI);
+  }
+
+  /**
+   * Writes the snapshot to a temporary file first and moves it in place, so readers never see a partial file
+   */
+  void write(Path snapshotFile, long sourceLastModified) throws IOException {
+    Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+    for (Map.Entry<String, Set<String>> entry : classHierarchy.entrySet()) {
+      indexOf(stringIndexes, entry.getKey());
+      for (String subClassURI : entry.getValue()) {
+        indexOf(stringIndexes, subClassURI);
+      }
+    }
+    for (Map.Entry<ValueSetsExtractor.Annotation, Map<String, String>> entry : annotations.entrySet()) {
+      indexOf(stringIndexes, entry.getKey().name());
+      for (Map.Entry<String, String> value : entry.getValue().entrySet()) {
+        indexOf(stringIndexes, value.getKey());
+        indexOf(stringIndexes, value.getValue());
+      }
+    }
+
+    Path tempFile = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(),
+        snapshotFile.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(sourceLastModified);
+
+        out.writeInt(stringIndexes.size());
+        for (String s : stringIndexes.keySet()) {
+          byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+
+        out.writeInt(classHierarchy.size());
+        for (Map.Entry<String, Set<String>> entry : classHierarchy.entrySet()) {
+          out.writeInt(stringIndexes.get(entry.getKey()));
+          out.writeInt(entry.getValue().size());
+          for (String subClassURI : entry.getValue()) {
+            out.writeInt(stringIndexes.get(subClassURI));
+          }
+        }
+
+        out.writeInt(annotations.size());
+        for (Map.Entry<ValueSetsExtractor.Annotation, Map<String, String>> entry : annotations.entrySet()) {
+          out.writeInt(stringIndexes.get(entry.getKey().name()));
+          out.writeInt(entry.getValue().size());
+          for (Map.Entry<String, String> value : entry.getValue().entrySet()) {
+            out.writeInt(stringIndexes.get(value.getKey()));
+            out.writeInt(stringIndexes.get(value.getValue()));
+          }
+        }
+      }
+      Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private static int indexOf(Map<String, Integer> stringIndexes, String s) {
+    return stringIndexes.computeIfAbsent(s, k -> stringIndexes.size());
+  }
+
+  /**
+   * Reads a snapshot through a memory-mapped buffer. Fails if the file is not a snapshot in the current format or was
+   * built from a different version of the source ontology.
+   */
+  static ValueSetsSnapshot read(Path snapshotFile, long expectedSourceLastModified) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    try {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+        throw new IOException("Unknown value sets snapshot format: " + snapshotFile);
+      }
+      if (buffer.getLong() != expectedSourceLastModified) {
+        throw new IOException("Value sets snapshot is out of date: " + snapshotFile);
+      }
+
+      String[] strings = new String[buffer.getInt()];
+      for (int i = 0; i < strings.length; i++) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        strings[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+
+      int hierarchySize = buffer.getInt();
+      Map<String, Set<String>> classHierarchy = new HashMap<>(hierarchySize * 2);
+      for (int i = 0; i < hierarchySize; i++) {
+        String superClassURI = strings[buffer.getInt()];
+        int subClassCount = buffer.getInt();
+        Set<String> subClassURIs = new HashSet<>(subClassCount * 2);
+        for (int j = 0; j < subClassCount; j++) {
+          subClassURIs.add(strings[buffer.getInt()]);
+        }
+        classHierarchy.put(superClassURI, subClassURIs);
+      }
+
+      int annotationCount = buffer.getInt();
+      Map<ValueSetsExtractor.Annotation, Map<String, String>> annotations =
+          new EnumMap<>(ValueSetsExtractor.Annotation.class);
+      for (int i = 0; i < annotationCount; i++) {
+        ValueSetsExtractor.Annotation annotation = ValueSetsExtractor.Annotation.valueOf(strings[buffer.getInt()]);
+        int valueCount = buffer.getInt();
+        Map<String, String> values = new HashMap<>(valueCount * 2);
+        for (int j = 0; j < valueCount; j++) {
+          values.put(strings[buffer.getInt()], strings[buffer.getInt()]);
+        }
+        annotations.put(annotation, values);
+      }
+      return new ValueSetsSnapshot(classHierarchy, annotations);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IOException("Corrupt value sets snapshot: " + snapshotFile, e);
+    }
+  }
+}
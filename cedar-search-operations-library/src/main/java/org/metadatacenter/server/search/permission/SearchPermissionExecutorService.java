@@ -5,11 +5,11 @@ import org.metadatacenter.config.CedarConfig;
 import org.metadatacenter.exception.CedarProcessingException;
 import org.metadatacenter.id.*;
 import org.metadatacenter.model.CedarResourceType;
-import org.metadatacenter.model.Upsert;
 import org.metadatacenter.model.folderserver.basic.FileSystemResource;
 import org.metadatacenter.model.folderserver.basic.FolderServerArtifact;
 import org.metadatacenter.rest.context.CedarRequestContext;
 import org.metadatacenter.rest.context.CedarRequestContextFactory;
+import org.metadatacenter.search.IndexingDocumentDocument;
 import org.metadatacenter.server.CategoryServiceSession;
 import org.metadatacenter.server.FolderServiceSession;
 import org.metadatacenter.server.ResourcePermissionServiceSession;
@@ -23,12 +23,14 @@ import org.metadatacenter.server.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
+import java.util.*;
 
 public class SearchPermissionExecutorService {
 
   private static final Logger log = LoggerFactory.getLogger(SearchPermissionExecutorService.class);
 
+  private static final int BATCH_SIZE = 500;
+
   private final FolderServiceSession folderSession;
   private final ResourcePermissionServiceSession permissionSession;
   private final CategoryServiceSession categorySession;
@@ -53,86 +55,182 @@ public class SearchPermissionExecutorService {
 
   // Main entry point
   public void handleEvent(SearchPermissionQueueEvent event) {
-    switch (event.getEventType()) {
-      case RESOURCE_MOVED:
-        updateOneArtifact(CedarUntypedArtifactId.build(event.getId()));
-        break;
-      case RESOURCE_PERMISSION_CHANGED:
-        updateOneArtifact(CedarUntypedArtifactId.build(event.getId()));
-        break;
-      case FOLDER_MOVED:
-        updateFolderRecursively(CedarFolderId.build(event.getId()));
-        break;
-      case FOLDER_PERMISSION_CHANGED:
-        updateFolderRecursively(CedarFolderId.build(event.getId()));
-        break;
-      case GROUP_MEMBERS_UPDATED:
-        updateAllByUpdatedGroup(CedarGroupId.build(event.getId()));
-        break;
-      case GROUP_DELETED:
-        updateAllByDeletedGroup(CedarGroupId.build(event.getId()));
-        break;
+    handleEvents(Collections.singletonList(event));
+  }
+
+  /**
+   * Handles a batch of events at once. Duplicate events are dropped, every affected resource is collected once, and
+   * the index is then updated in bulk: resources that were moved are re-indexed in full, the others only get their
+   * permission fields rewritten.
+   */
+  public void handleEvents(List<SearchPermissionQueueEvent> events) {
+    Map<String, SearchPermissionQueueEvent> uniqueEvents = new LinkedHashMap<>();
+    for (SearchPermissionQueueEvent event : events) {
+      uniqueEvents.putIfAbsent(event.getEventType() + ":" + event.getId(), event);
+    }
+    log.debug("Handling " + uniqueEvents.size() + " distinct of " + events.size() + " search permission events");
+
+    Map<String, CedarFilesystemResourceId> toReindex = new LinkedHashMap<>();
+    Map<String, CedarFilesystemResourceId> toUpdatePermissions = new LinkedHashMap<>();
+    Set<String> walkedForReindex = new HashSet<>();
+    Set<String> walkedForPermissions = new HashSet<>();
+    // Moves first, the full re-index also refreshes the permissions
+    for (SearchPermissionQueueEvent event : uniqueEvents.values()) {
+      switch (event.getEventType()) {
+        case RESOURCE_MOVED:
+          collectArtifact(CedarUntypedArtifactId.build(event.getId()), toReindex);
+          break;
+        case FOLDER_MOVED:
+          collectFolderRecursively(CedarFolderId.build(event.getId()), toReindex, walkedForReindex);
+          break;
+      }
+    }
+    for (SearchPermissionQueueEvent event : uniqueEvents.values()) {
+      switch (event.getEventType()) {
+        case RESOURCE_PERMISSION_CHANGED:
+          collectArtifact(CedarUntypedArtifactId.build(event.getId()), toUpdatePermissions);
+          break;
+        case FOLDER_PERMISSION_CHANGED:
+          collectFolderRecursively(CedarFolderId.build(event.getId()), toUpdatePermissions,
+              walkedForPermissions);
+          break;
+        case GROUP_MEMBERS_UPDATED:
+          collectAllByUpdatedGroup(CedarGroupId.build(event.getId()), toUpdatePermissions);
+          break;
+        case GROUP_DELETED:
+          collectAllByDeletedGroup(CedarGroupId.build(event.getId()), toUpdatePermissions);
+          break;
+      }
+    }
+    toUpdatePermissions.keySet().removeAll(toReindex.keySet());
+
+    for (List<CedarFilesystemResourceId> batch : partition(toUpdatePermissions.values())) {
+      updatePermissions(batch, toReindex);
+    }
+    for (List<CedarFilesystemResourceId> batch : partition(toReindex.values())) {
+      reindex(batch);
     }
   }
 
-  private void updateOneArtifact(CedarArtifactId artifactId) {
+  private void collectArtifact(CedarArtifactId artifactId, Map<String, CedarFilesystemResourceId> collected) {
     FolderServerArtifact resource = folderSession.findArtifactById(artifactId);
     if (resource != null) {
       log.debug("Update one artifact:" + resource.getName());
-      upsertOnePermissions(Upsert.UPDATE, artifactId);
+      collected.putIfAbsent(artifactId.getId(), artifactId);
     } else {
       log.error("Resource was not found:" + artifactId);
     }
   }
 
-  private void updateFolderRecursively(CedarFolderId folderId) {
+  // A folder that was already reached through the subtree of another event is not walked again
+  private void collectFolderRecursively(CedarFolderId folderId, Map<String, CedarFilesystemResourceId> collected,
+                                        Set<String> walkedFolderIds) {
+    if (walkedFolderIds.contains(folderId.getId())) {
+      log.debug("Folder already collected:" + folderId);
+      return;
+    }
     log.debug("Update recursive folder:");
+    walkedFolderIds.add(folderId.getId());
     List<FileSystemResource> subtree = folderSession.findAllDescendantNodesById(folderId);
     for (FileSystemResource n : subtree) {
-      upsertOnePermissions(Upsert.UPDATE, n.getResourceId());
+      collected.putIfAbsent(n.getId(), n.getResourceId());
+      if (n.getType() == CedarResourceType.FOLDER) {
+        walkedFolderIds.add(n.getId());
+      }
     }
   }
 
-  private void updateAllByUpdatedGroup(CedarGroupId groupId) {
+  private void collectAllByUpdatedGroup(CedarGroupId groupId, Map<String, CedarFilesystemResourceId> collected) {
     log.debug("Update all visible by group:");
     List<FileSystemResource> collection = folderSession.findAllNodesVisibleByGroupId(groupId);
     for (FileSystemResource n : collection) {
       if (indexUtils.needsIndexing(n)) {
-        upsertOnePermissions(Upsert.UPDATE, n.getResourceId());
+        collected.putIfAbsent(n.getId(), n.getResourceId());
       } else {
         log.info("The resource was skipped from indexing:" + n.getId());
       }
     }
   }
 
-  private void updateAllByDeletedGroup(CedarGroupId groupId) {
+  private void collectAllByDeletedGroup(CedarGroupId groupId, Map<String, CedarFilesystemResourceId> collected) {
     log.debug("Update all visible by group:");
-    List<String> allCedarIdsForGroup = null;
     try {
-      allCedarIdsForGroup = nodeSearchingService.findAllCedarIdsForGroup(groupId);
+      List<String> allCedarIdsForGroup = nodeSearchingService.findAllCedarIdsForGroup(groupId);
       for (String cid : allCedarIdsForGroup) {
         log.info("Need to update permissions for:" + cid);
-        upsertOnePermissions(Upsert.UPDATE, CedarUntypedFilesystemResourceId.build(cid));
+        collected.putIfAbsent(cid, CedarUntypedFilesystemResourceId.build(cid));
       }
     } catch (CedarProcessingException e) {
       log.error("Error while retrieving all the affected documents for group:" + groupId);
-      return;
     }
   }
 
-  private void upsertOnePermissions(Upsert upsert, CedarFilesystemResourceId resourceId) {
-    log.debug("upsertOneDocument for permissions:" + upsert.getValue() + ":" + resourceId);
-    try {
-      FileSystemResource node = folderSession.findResourceById(resourceId);
+  private static List<List<CedarFilesystemResourceId>> partition(Collection<CedarFilesystemResourceId> resourceIds) {
+    List<List<CedarFilesystemResourceId>> batches = new ArrayList<>();
+    List<CedarFilesystemResourceId> batch = new ArrayList<>();
+    for (CedarFilesystemResourceId resourceId : resourceIds) {
+      batch.add(resourceId);
+      if (batch.size() == BATCH_SIZE) {
+        batches.add(batch);
+        batch = new ArrayList<>();
+      }
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+    return batches;
+  }
+
+  // Resources that are not in the index yet are added to the re-index batches
+  private void updatePermissions(List<CedarFilesystemResourceId> resourceIds,
+                                 Map<String, CedarFilesystemResourceId> toReindex) {
+    log.debug("Updating permissions of " + resourceIds.size() + " resources");
+    Map<String, CedarNodeMaterializedPermissions> permissionsById = new LinkedHashMap<>();
+    for (CedarFilesystemResourceId resourceId : resourceIds) {
       CedarNodeMaterializedPermissions perm = permissionSession.getResourceMaterializedPermission(resourceId);
-      CedarNodeMaterializedCategories categories = null;
-      if (node != null && node.getType() != CedarResourceType.FOLDER) {
-        categories = categorySession.getArtifactMaterializedCategories(CedarUntypedArtifactId.build(resourceId.getId()));
+      if (perm != null) {
+        permissionsById.put(resourceId.getId(), perm);
+      } else {
+        log.error("Resource was not found:" + resourceId);
       }
-      if (upsert == Upsert.UPDATE) {
-        nodeIndexingService.removeDocumentFromIndex(resourceId);
+    }
+    try {
+      Set<String> notIndexed = nodeIndexingService.updateDocumentPermissions(permissionsById);
+      for (CedarFilesystemResourceId resourceId : resourceIds) {
+        if (notIndexed.contains(resourceId.getId())) {
+          toReindex.put(resourceId.getId(), resourceId);
+        }
       }
-      nodeIndexingService.indexDocument(node, perm, categories, cedarRequestContext);
+    } catch (Exception e) {
+      log.error("Error while updating permissions", e);
+    }
+  }
+
+  private void reindex(List<CedarFilesystemResourceId> resourceIds) {
+    log.debug("Re-indexing " + resourceIds.size() + " resources");
+    List<IndexingDocumentDocument> documents = new ArrayList<>();
+    List<String> ids = new ArrayList<>();
+    for (CedarFilesystemResourceId resourceId : resourceIds) {
+      try {
+        FileSystemResource node = folderSession.findResourceById(resourceId);
+        if (node == null) {
+          log.error("Resource was not found:" + resourceId);
+          continue;
+        }
+        CedarNodeMaterializedPermissions perm = permissionSession.getResourceMaterializedPermission(resourceId);
+        CedarNodeMaterializedCategories categories = null;
+        if (node.getType() != CedarResourceType.FOLDER) {
+          categories = categorySession.getArtifactMaterializedCategories(CedarUntypedArtifactId.build(resourceId.getId()));
+        }
+        documents.add(nodeIndexingService.createIndexDocument(node, perm, categories, cedarRequestContext, false));
+        ids.add(resourceId.getId());
+      } catch (Exception e) {
+        log.error("Error while upserting permissions", e);
+      }
+    }
+    try {
+      nodeIndexingService.removeDocumentsFromIndex(ids);
+      nodeIndexingService.indexBatch(documents);
     } catch (Exception e) {
       log.error("Error while upserting permissions", e);
     }
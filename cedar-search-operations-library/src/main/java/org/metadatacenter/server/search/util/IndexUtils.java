@@ -13,6 +13,8 @@ import org.metadatacenter.model.request.NodeListRequest;
 import org.metadatacenter.model.response.FolderServerNodeListResponse;
 import org.metadatacenter.rest.context.CedarRequestContext;
 import org.metadatacenter.server.FolderServiceSession;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetPage;
+import org.metadatacenter.server.neo4j.cypher.sort.QuerySortOptions;
 import org.metadatacenter.server.search.elasticsearch.service.ElasticsearchManagementService;
 import org.metadatacenter.server.search.elasticsearch.service.ElasticsearchServiceFactory;
 import org.metadatacenter.server.search.elasticsearch.service.NodeIndexingService;
@@ -27,8 +29,10 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class IndexUtils {
 
@@ -53,47 +57,40 @@ public class IndexUtils {
    * Those resources that don't have to be in the index, such as the "/" folder and the "Lost+Found" folder are ignored.
    */
   public List<FileSystemResource> findAllResources(CedarRequestContext context) {
-    log.info("Retrieving all resources.");
     List<FileSystemResource> resources = new ArrayList<>();
-    boolean finished = false;
+    forEachResource(context, resources::add);
+    return resources;
+  }
 
-    int offset = 0;
+  /**
+   * Streams the resources that are expected to be in the search index to the consumer, one page at a time, without
+   * holding all of them in memory. Every page is a short read of its own, so a slow consumer does not keep a Neo4j
+   * transaction open.
+   */
+  public void forEachResource(CedarRequestContext context, Consumer<FileSystemResource> consumer) {
+    log.info("Retrieving all resources.");
+    FolderServiceSession folderSession = CedarDataServices.getFolderServiceSession(context);
+    List<String> sortList = Collections.singletonList(QuerySortOptions.getDefaultSortField().getName());
+    long totalCount = folderSession.findAllNodesCount();
+
+    // Keyset paging: every page is a seek from the last key of the previous one, instead of an ever-growing SKIP
+    String cursor = null;
     int countSoFar = 0;
-    while (!finished) {
+    do {
       log.info("Reading resources");
-
-      FolderServerNodeListResponse pagedNodes = null;
-      try {
-        pagedNodes = findAllNodes(context, Optional.empty(), limit, offset);
-      } catch (CedarException e) {
-        log.error("Error while reading nodes", e);
-        e.printStackTrace();
-      }
-      int count = 0;
-      long totalCount = 0;
-      long currentOffset = 0;
-      if (pagedNodes != null) {
-        count = pagedNodes.getResources().size();
-        totalCount = pagedNodes.getTotalCount();
-        countSoFar += count;
-        log.info("Retrieved " + countSoFar + "/" + totalCount + " resources");
-        currentOffset = pagedNodes.getCurrentOffset();
-        for (FolderServerResourceExtract folderServerNodeExtract : pagedNodes.getResources()) {
-          FileSystemResource folderServerNode = FileSystemResource.fromNodeExtract(folderServerNodeExtract);
-          if (needsIndexing(folderServerNode)) {
-            resources.add(folderServerNode);
-          } else {
-            log.info("The resource '" + folderServerNode.getName() + "' has been ignored");
-          }
+      KeysetPage<FolderServerResourceExtract> page = folderSession.findAllNodesAfter(limit, cursor, sortList);
+      countSoFar += page.getResources().size();
+      log.info("Retrieved " + countSoFar + "/" + totalCount + " resources");
+      for (FolderServerResourceExtract folderServerNodeExtract : page.getResources()) {
+        FileSystemResource folderServerNode = FileSystemResource.fromNodeExtract(folderServerNodeExtract);
+        if (needsIndexing(folderServerNode)) {
+          consumer.accept(folderServerNode);
+        } else {
+          log.info("The resource '" + folderServerNode.getName() + "' has been ignored");
         }
       }
-      if (currentOffset + count >= totalCount) {
-        finished = true;
-      } else {
-        offset = offset + count;
-      }
-    }
-    return resources;
+      cursor = page.getNextCursor();
+    } while (cursor != null);
   }
 
   public boolean needsIndexing(FileSystemResource folderServerNode) {
@@ -220,4 +217,9 @@ public class IndexUtils {
     getNodeIndexingService().readValueSets();
   }
 
+  public void buildValueSetsSnapshot() throws CedarProcessingException
+  {
+    getNodeIndexingService().buildValueSetsSnapshot();
+  }
+
 }
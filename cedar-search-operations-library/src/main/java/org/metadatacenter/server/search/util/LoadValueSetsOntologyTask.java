@@ -28,4 +28,20 @@ public class LoadValueSetsOntologyTask {
     }
   }
 
+  /**
+   * Parses the value sets ontology and writes the snapshot that is loaded at startup instead of the OWL file
+   */
+  public void buildValueSetsSnapshot(CedarRequestContext requestContext) throws CedarProcessingException
+  {
+    log.info("Building value sets ontology snapshot.");
+    IndexUtils indexUtils = new IndexUtils(cedarConfig);
+
+    try {
+      indexUtils.buildValueSetsSnapshot();
+    } catch (Exception e) {
+      log.warn("Failed to build value sets ontology snapshot: " + e.getMessage());
+      throw new CedarProcessingException(e);
+    }
+  }
+
 }
@@ -4,23 +4,27 @@ import org.metadatacenter.bridge.CedarDataServices;
 import org.metadatacenter.config.CedarConfig;
 import org.metadatacenter.exception.CedarProcessingException;
 import org.metadatacenter.id.CedarArtifactId;
-import org.metadatacenter.model.folderserver.basic.FileSystemResource;
 import org.metadatacenter.model.folderserver.basic.FolderServerArtifact;
 import org.metadatacenter.rest.context.CedarRequestContext;
-import org.metadatacenter.search.IndexingDocumentDocument;
 import org.metadatacenter.server.CategoryServiceSession;
 import org.metadatacenter.server.ResourcePermissionServiceSession;
 import org.metadatacenter.server.search.elasticsearch.service.ElasticsearchManagementService;
 import org.metadatacenter.server.search.elasticsearch.service.NodeIndexingService;
 import org.metadatacenter.server.search.elasticsearch.service.NodeSearchingService;
+import org.metadatacenter.server.search.elasticsearch.worker.ElasticsearchBulkIndexer;
 import org.metadatacenter.server.security.model.auth.CedarNodeMaterializedCategories;
 import org.metadatacenter.server.security.model.auth.CedarNodeMaterializedPermissions;
+import org.metadatacenter.util.EnvUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.metadatacenter.constant.ElasticsearchConstants.DOCUMENT_CEDAR_ID;
 
@@ -29,6 +33,11 @@ public class RegenerateSearchIndexTask {
   private static final Logger log = LoggerFactory.getLogger(RegenerateSearchIndexTask.class);
 
   private final static int BATCH_SIZE = 1000;
+  private final static int WORK_QUEUE_SIZE_PER_WORKER = 10;
+  private final static int DEFAULT_BULK_CONCURRENT_REQUESTS = 2;
+
+  public static final String WORKER_COUNT_VARIABLE = "CEDAR_SEARCH_REGENERATION_WORKERS";
+  public static final String BULK_CONCURRENT_REQUESTS_VARIABLE = "CEDAR_SEARCH_REGENERATION_BULK_CONCURRENT_REQUESTS";
 
   private final CedarConfig cedarConfig;
 
@@ -54,15 +63,9 @@ public class RegenerateSearchIndexTask {
     NodeSearchingService nodeSearchingService = indexUtils.getNodeSearchingService();
 
     String aliasName = cedarConfig.getElasticsearchConfig().getIndexes().getSearchIndex().getName();
-    NodeIndexingService nodeIndexingService = null;
 
     boolean regenerate = true;
     try {
-      ResourcePermissionServiceSession permissionSession = CedarDataServices.getResourcePermissionServiceSession(requestContext);
-      CategoryServiceSession categorySession = CedarDataServices.getCategoryServiceSession(requestContext);
-      // Get all resources
-      log.info("Reading all resources from the existing search index.");
-      List<FileSystemResource> resources = indexUtils.findAllResources(requestContext);
       // Checks if is necessary to regenerate the index or not
       if (!force) {
         log.info("Force is false. Checking if it is necessary to regenerate the search index from Neo4j.");
@@ -70,17 +73,14 @@ public class RegenerateSearchIndexTask {
         if (esManagementService.indexExists(aliasName)) {
           log.warn("The search index/alias '" + aliasName + "' is present!");
           // Use the artifact ids to check if the resources in the DBs and in the index are different
-          List<String> dbResourceIds = getResourceIds(resources);
+          List<String> dbResourceIds = new ArrayList<>();
+          indexUtils.forEachResource(requestContext, resource -> dbResourceIds.add(resource.getId()));
           log.info("No. of nodes in Neo4j that are expected to be indexed: " + dbResourceIds.size());
           List<String> indexResourceIds = nodeSearchingService.findAllValuesForField(DOCUMENT_CEDAR_ID);
           log.info("No. of content document in the index: " + indexResourceIds.size());
           if (dbResourceIds.size() == indexResourceIds.size()) {
             // Compare the two lists
-            List<String> tmp1 = new ArrayList(dbResourceIds);
-            List<String> tmp2 = new ArrayList(indexResourceIds);
-            Collections.sort(tmp1);
-            Collections.sort(tmp2);
-            if (tmp1.equals(tmp2)) {
+            if (new HashSet<>(dbResourceIds).equals(new HashSet<>(indexResourceIds))) {
               regenerate = false;
               log.info("Neo4j and search index match. It is not necessary to regenerate the index");
             } else {
@@ -102,40 +102,15 @@ public class RegenerateSearchIndexTask {
         esManagementService.createSearchIndex(newIndexName);
         log.info("Search index created:" + newIndexName);
 
-        nodeIndexingService = indexUtils.getNodeIndexingService(newIndexName);
-
-        // Get resources content and index it
-        int count = 1;
-        int batchCount = 1;
-        List<IndexingDocumentDocument> currentBatch = new ArrayList<>();
-        for (FileSystemResource node : resources) {
-          try {
-            CedarNodeMaterializedPermissions perm = permissionSession.getResourceMaterializedPermission(node.getResourceId());
-            CedarNodeMaterializedCategories categories = null;
-            if (node instanceof FolderServerArtifact) {
-              categories = categorySession.getArtifactMaterializedCategories((CedarArtifactId) node.getResourceId());
-            }
-            currentBatch.add(nodeIndexingService.createIndexDocument(node, perm, categories, requestContext, true));
+        NodeIndexingService nodeIndexingService = indexUtils.getNodeIndexingService(newIndexName);
 
-            if (count % 100 == 0) {
-              float progress = (100 * count++) / resources.size();
-              log.info(String.format("Progress: %.0f%%", progress));
-            }
-            if (currentBatch.size() >= BATCH_SIZE) {
-              log.info(String.format("Batch progress: %d", batchCount));
-              nodeIndexingService.indexBatch(currentBatch);
-              currentBatch.clear();
-            }
-            count++;
-            batchCount++;
-          } catch (Exception e) {
-            log.error("Error while indexing document: " + node.getId(), e);
-          }
-        }
-
-        log.info(String.format("Batch progress remaining: %d", currentBatch.size()));
-        if (currentBatch.size() > 0) {
-          nodeIndexingService.indexBatch(currentBatch);
+        // Get resources content and index it. An incomplete index must not replace the current one.
+        try {
+          indexAllResources(indexUtils, nodeIndexingService, requestContext);
+        } catch (Exception e) {
+          log.error("Indexing into " + newIndexName + " failed, the alias is left on the current index");
+          deleteIncompleteIndex(esManagementService, newIndexName);
+          throw e;
         }
 
         // Point alias to new index
@@ -150,18 +125,70 @@ public class RegenerateSearchIndexTask {
     } catch (Exception e) {
       log.error("Error while regenerating index", e);
       throw new CedarProcessingException(e);
-    } finally {
-      // Clear template nodes cache
-      nodeIndexingService.instanceContentExtractor.clearNodesCache();
     }
   }
 
-  private List<String> getResourceIds(List<FileSystemResource> resources) {
-    List<String> ids = new ArrayList<>();
-    for (FileSystemResource resource : resources) {
-      ids.add(resource.getId());
+  private static void deleteIncompleteIndex(ElasticsearchManagementService esManagementService, String indexName) {
+    try {
+      esManagementService.deleteIndex(indexName);
+      log.info("Incomplete search index deleted:" + indexName);
+    } catch (Exception e) {
+      log.error("Error while deleting the incomplete search index " + indexName, e);
+    }
+  }
+
+  /**
+   * Streams the resources from Neo4j, builds their documents on a pool of workers and sends them to the index with
+   * an asynchronous bulk indexer. The work queue and the bulk indexer are both bounded, so a slow consumer throttles
+   * the stages before it instead of letting documents pile up in memory. Fails if the bulk indexer times out or some
+   * documents were rejected by the index.
+   */
+  private void indexAllResources(IndexUtils indexUtils, NodeIndexingService nodeIndexingService,
+                                 CedarRequestContext requestContext)
+      throws InterruptedException, CedarProcessingException {
+    ResourcePermissionServiceSession permissionSession =
+        CedarDataServices.getResourcePermissionServiceSession(requestContext);
+    CategoryServiceSession categorySession = CedarDataServices.getCategoryServiceSession(requestContext);
+
+    int workerCount = (int) EnvUtil.readPositiveLong(WORKER_COUNT_VARIABLE, Runtime.getRuntime().availableProcessors());
+    // With 0 concurrent requests, every bulk is sent synchronously by the thread that fills it
+    int concurrentRequests = (int) EnvUtil.readNonNegativeLong(BULK_CONCURRENT_REQUESTS_VARIABLE,
+        DEFAULT_BULK_CONCURRENT_REQUESTS);
+    log.info("Indexing with " + workerCount + " workers and " + concurrentRequests + " concurrent bulk requests");
+
+    // When the queue is full the reading thread builds the document itself, which pauses the reading
+    ThreadPoolExecutor workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(workerCount * WORK_QUEUE_SIZE_PER_WORKER), new ThreadPoolExecutor.CallerRunsPolicy());
+    AtomicLong count = new AtomicLong();
+    ElasticsearchBulkIndexer bulkIndexer = nodeIndexingService.openBulkIndexer(BATCH_SIZE, concurrentRequests);
+    try (ElasticsearchBulkIndexer closedIndexer = bulkIndexer) {
+      try {
+        indexUtils.forEachResource(requestContext, node -> workers.execute(() -> {
+          try {
+            CedarNodeMaterializedPermissions perm =
+                permissionSession.getResourceMaterializedPermission(node.getResourceId());
+            CedarNodeMaterializedCategories categories = null;
+            if (node instanceof FolderServerArtifact) {
+              categories = categorySession.getArtifactMaterializedCategories((CedarArtifactId) node.getResourceId());
+            }
+            bulkIndexer.add(nodeIndexingService.createIndexDocument(node, perm, categories, requestContext, true));
+            long current = count.incrementAndGet();
+            if (current % 1000 == 0) {
+              log.info("Progress: " + current + " documents built");
+            }
+          } catch (Exception e) {
+            log.error("Error while indexing document: " + node.getId(), e);
+          }
+        }));
+      } finally {
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      }
+      log.info("Documents built: " + count.get());
+    }
+    if (bulkIndexer.getFailedCount() > 0) {
+      throw new CedarProcessingException(bulkIndexer.getFailedCount() + " documents could not be indexed");
     }
-    return ids;
   }
 
 }
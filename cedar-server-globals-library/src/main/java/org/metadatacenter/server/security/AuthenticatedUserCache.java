@@ -0,0 +1,72 @@
+package org.metadatacenter.server.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hashing;
+import org.metadatacenter.server.security.model.user.CedarUser;
+import org.metadatacenter.util.EnvUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of the users resolved from the authorization header, keyed by token subject and expiry, or by the
+ * hash of the API key. Entries are dropped when the user is updated through this JVM; updates made by other
+ * microservices become visible once the entry expires. Cached users are shared between requests, treat them as
+ * read-only.
+ */
+public final class AuthenticatedUserCache {
+
+  public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+  public static final long DEFAULT_TTL_SECONDS = 60;
+
+  public static final String MAXIMUM_SIZE_VARIABLE = "CEDAR_AUTHENTICATED_USER_CACHE_MAXIMUM_SIZE";
+  public static final String TTL_SECONDS_VARIABLE = "CEDAR_AUTHENTICATED_USER_CACHE_TTL_SECONDS";
+
+  private static final String TOKEN_KEY_PREFIX = "token:";
+  private static final String API_KEY_KEY_PREFIX = "apiKey:";
+
+  // A value of 0 for either variable disables the cache
+  private static final Cache<String, CedarUser> cache = CacheBuilder.newBuilder()
+      .concurrencyLevel(10)
+      .maximumSize(EnvUtil.readNonNegativeLong(MAXIMUM_SIZE_VARIABLE, DEFAULT_MAXIMUM_SIZE))
+      .expireAfterWrite(EnvUtil.readNonNegativeLong(TTL_SECONDS_VARIABLE, DEFAULT_TTL_SECONDS), TimeUnit.SECONDS)
+      .recordStats()
+      .build();
+
+  private AuthenticatedUserCache() {
+  }
+
+  public static String tokenKey(String subject, long expiration) {
+    return TOKEN_KEY_PREFIX + subject + ":" + expiration;
+  }
+
+  public static String apiKeyKey(String apiKey) {
+    return API_KEY_KEY_PREFIX + Hashing.sha256().hashString(apiKey, StandardCharsets.UTF_8).toString();
+  }
+
+  public static CedarUser get(String key) {
+    return cache.getIfPresent(key);
+  }
+
+  public static void put(String key, CedarUser user) {
+    if (user != null) {
+      cache.put(key, user);
+    }
+  }
+
+  public static void invalidateUser(String userId) {
+    if (userId != null) {
+      cache.asMap().values().removeIf(user -> userId.equals(user.getId()));
+    }
+  }
+
+  public static void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public static CacheStats getStats() {
+    return cache.stats();
+  }
+}
@@ -0,0 +1,71 @@
+package org.metadatacenter.util;
+
+/**
+ * Reads the tuning settings that are not part of the CEDAR config files from the environment. A missing variable, or
+ * a value that is not a number in the accepted range or a boolean, falls back to the default.
+ */
+public final class EnvUtil {
+
+  private EnvUtil() {
+  }
+
+  public static long readPositiveLong(String variableName, long defaultValue) {
+    return readLong(variableName, defaultValue, 1);
+  }
+
+  /**
+   * For the settings where zero is meaningful, for example to disable something
+   */
+  public static long readNonNegativeLong(String variableName, long defaultValue) {
+    return readLong(variableName, defaultValue, 0);
+  }
+
+  private static long readLong(String variableName, long defaultValue, long minimum) {
+    String value = System.getenv(variableName);
+    if (value != null) {
+      try {
+        long parsed = Long.parseLong(value.trim());
+        if (parsed >= minimum) {
+          return parsed;
+        }
+      } catch (NumberFormatException e) {
+        // fall back to default
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Only true and false are accepted, ignoring case
+   */
+  public static boolean readBoolean(String variableName, boolean defaultValue) {
+    String value = System.getenv(variableName);
+    if (value != null) {
+      String trimmed = value.trim();
+      if ("true".equalsIgnoreCase(trimmed)) {
+        return true;
+      } else if ("false".equalsIgnoreCase(trimmed)) {
+        return false;
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * For ratios such as sample rates, the value must be between 0 and 1, both included
+   */
+  public static double readFraction(String variableName, double defaultValue) {
+    String value = System.getenv(variableName);
+    if (value != null) {
+      try {
+        double parsed = Double.parseDouble(value.trim());
+        if (parsed >= 0.0 && parsed <= 1.0) {
+          return parsed;
+        }
+      } catch (NumberFormatException e) {
+        // fall back to default
+      }
+    }
+    return defaultValue;
+  }
+}
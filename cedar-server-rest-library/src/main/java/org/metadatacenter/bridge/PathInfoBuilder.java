@@ -1,5 +1,6 @@
 package org.metadatacenter.bridge;
 
+import org.metadatacenter.id.CedarFilesystemResourceId;
 import org.metadatacenter.model.folderserver.basic.FileSystemResource;
 import org.metadatacenter.model.folderserver.extract.FolderServerFolderExtract;
 import org.metadatacenter.model.folderserver.extract.FolderServerResourceExtract;
@@ -8,7 +9,9 @@ import org.metadatacenter.server.FolderServiceSession;
 import org.metadatacenter.server.ResourcePermissionServiceSession;
 import org.metadatacenter.server.security.model.auth.CedarPermission;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public final class PathInfoBuilder {
 
@@ -20,28 +23,32 @@ public final class PathInfoBuilder {
                                                                          ResourcePermissionServiceSession permissionSession,
                                                                          FileSystemResource node) {
     List<FolderServerResourceExtract> pathInfo = folderSession.findNodePathExtract(node);
+    boolean canReadAll = context.getCedarUser().has(CedarPermission.READ_NOT_READABLE_NODE);
+    List<CedarFilesystemResourceId> idsToCheck = new ArrayList<>();
+    if (!canReadAll) {
+      for (FolderServerResourceExtract extract : pathInfo) {
+        if (!isRootOrSystemFolder(extract)) {
+          idsToCheck.add(extract.getResourceId());
+        }
+      }
+    }
+    Set<String> readableIds = permissionSession.getReadableResourceIds(idsToCheck);
     boolean isOpenImplicitly = false;
     for (FolderServerResourceExtract extract : pathInfo) {
       if (extract.getIsOpen() != null && extract.getIsOpen()) {
         isOpenImplicitly = true;
       }
       extract.setIsOpenImplicitly(isOpenImplicitly);
-      extract.setActiveUserCanRead(activeUserCanRead(context, permissionSession, extract));
+      extract.setActiveUserCanRead(canReadAll || readableIds.contains(extract.getResourceId().getId()));
     }
     return pathInfo;
   }
 
-  private static boolean activeUserCanRead(CedarRequestContext context, ResourcePermissionServiceSession permissionSession,
-                                           FolderServerResourceExtract nodeExtract) {
-    if (context.getCedarUser().has(CedarPermission.READ_NOT_READABLE_NODE)) {
-      return true;
-    }
+  private static boolean isRootOrSystemFolder(FolderServerResourceExtract nodeExtract) {
     if (nodeExtract instanceof FolderServerFolderExtract) {
       FolderServerFolderExtract folderExtract = (FolderServerFolderExtract) nodeExtract;
-      if (folderExtract.isRoot() || folderExtract.isSystem()) {
-        return false;
-      }
+      return folderExtract.isRoot() || folderExtract.isSystem();
     }
-    return permissionSession.userHasReadAccessToResource(nodeExtract.getResourceId());
+    return false;
   }
 }
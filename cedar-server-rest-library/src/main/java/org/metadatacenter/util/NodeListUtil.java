@@ -8,6 +8,8 @@ import org.metadatacenter.model.request.NodeListQueryType;
 import org.metadatacenter.model.request.NodeListRequest;
 import org.metadatacenter.model.response.FolderServerNodeListResponse;
 import org.metadatacenter.server.FolderServiceSession;
+import org.metadatacenter.server.neo4j.cypher.sort.CountedPage;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetPage;
 import org.metadatacenter.server.security.model.user.ResourcePublicationStatusFilter;
 import org.metadatacenter.server.security.model.user.ResourceVersionFilter;
 import org.metadatacenter.util.http.LinkHeaderUtil;
@@ -32,6 +34,7 @@ public abstract class NodeListUtil {
     req.setLimit(limit);
     req.setOffset(offset);
     req.setSort(sortList);
+    req.setCursor(pagedSortedTypedQuery.getCursor());
 
     return req;
   }
@@ -45,7 +48,29 @@ public abstract class NodeListUtil {
 
     r.setRequest(req);
 
-    List<FolderServerResourceExtract> resources = folderSession.findFolderContentsExtract(folderId, req);
+    List<FolderServerResourceExtract> resources;
+    long total;
+    if (pagedSortedTypedQuery.isKeysetPaging()) {
+      KeysetPage<FolderServerResourceExtract> page = folderSession.findFolderContentsExtractAfter(folderId, req);
+      resources = page.getResources();
+      r.setNextCursor(page.getNextCursor());
+      if (pagedSortedTypedQuery.isExactTotal()) {
+        total = folderSession.findFolderContentsCount(folderId, req);
+      } else {
+        total = CountedPage.UNKNOWN_TOTAL;
+      }
+    } else {
+      CountedPage<FolderServerResourceExtract> page = folderSession.findFolderContentsExtractPage(folderId, req,
+          pagedSortedTypedQuery.isExactTotal());
+      resources = page.getResources();
+      total = page.getTotalCount();
+      // Without an exact total, the paging links only need to know that one more resource exists
+      long pagingTotal = total;
+      if (total == CountedPage.UNKNOWN_TOTAL) {
+        pagingTotal = req.getOffset() + resources.size() + (page.hasNext() ? 1 : 0);
+      }
+      r.setPaging(LinkHeaderUtil.getPagingLinkHeaders(absoluteUrl, pagingTotal, req.getLimit(), req.getOffset()));
+    }
 
     boolean isOpenImplicitly = pathInfo.get(pathInfo.size() -1).getIsOpenImplicitly();
 
@@ -54,8 +79,6 @@ public abstract class NodeListUtil {
       resourceExtract.setIsOpenImplicitly(isOpenImplicitly);
     }
 
-    long total = folderSession.findFolderContentsCount(folderId, req);
-
     r.setTotalCount(total);
     r.setCurrentOffset(req.getOffset());
 
@@ -63,8 +86,6 @@ public abstract class NodeListUtil {
 
     r.setPathInfo(pathInfo);
 
-    r.setPaging(LinkHeaderUtil.getPagingLinkHeaders(absoluteUrl, total, req.getLimit(), req.getOffset()));
-
     return r;
   }
 
@@ -4,6 +4,7 @@ import org.apache.commons.lang.StringUtils;
 import org.metadatacenter.config.PaginationConfig;
 import org.metadatacenter.exception.CedarException;
 import org.metadatacenter.rest.exception.CedarAssertionException;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetCursor;
 import org.metadatacenter.server.neo4j.cypher.sort.QuerySortOptions;
 
 import java.util.ArrayList;
@@ -17,6 +18,10 @@ public class PagedSortedQuery extends PagedQuery {
 
   private List<String> sortList;
 
+  private Optional<String> cursorInput = Optional.empty();
+
+  private String cursor;
+
   public PagedSortedQuery(PaginationConfig config) {
     super(config);
     sortList = new ArrayList<>();
@@ -27,6 +32,15 @@ public class PagedSortedQuery extends PagedQuery {
     return this;
   }
 
+  /**
+   * Switches to keyset paging. An empty cursor requests the first page; later pages pass the cursor returned with
+   * the previous one. Offset paging is used when no cursor is given.
+   */
+  public PagedSortedQuery cursor(Optional<String> cursorInput) {
+    this.cursorInput = cursorInput;
+    return this;
+  }
+
   @Override
   public PagedSortedQuery limit(Optional<Integer> limitInput) {
     super.limit(limitInput);
@@ -44,6 +58,15 @@ public class PagedSortedQuery extends PagedQuery {
     validateLimit();
     validateOffset();
     validateSorting();
+    validateCursor();
+  }
+
+  public boolean isKeysetPaging() {
+    return cursorInput.isPresent();
+  }
+
+  public String getCursor() {
+    return cursor;
   }
 
   public List<String> getSortList() {
@@ -83,4 +106,34 @@ public class PagedSortedQuery extends PagedQuery {
     }
   }
 
+  protected void validateCursor() throws CedarException {
+    cursor = null;
+    if (cursorInput.isPresent()) {
+      String cursorString = cursorInput.get().trim();
+      if (getOffset() != 0) {
+        throw new CedarAssertionException("You should not specify both 'cursor' and 'offset'!")
+            .badRequest()
+            .parameter("cursor", cursorString)
+            .parameter("offset", getOffset());
+      }
+      if (!cursorString.isEmpty()) {
+        KeysetCursor keysetCursor;
+        try {
+          keysetCursor = KeysetCursor.decode(cursorString);
+        } catch (IllegalArgumentException e) {
+          throw new CedarAssertionException("You passed an invalid 'cursor'!")
+              .badRequest()
+              .parameter("cursor", cursorString);
+        }
+        if (!keysetCursor.getSort().equals(getSortListAsString())) {
+          throw new CedarAssertionException("The 'cursor' was issued for a different 'sort'!")
+              .badRequest()
+              .parameter("cursor", cursorString)
+              .parameter("sort", getSortListAsString());
+        }
+        cursor = cursorString;
+      }
+    }
+  }
+
 }
@@ -23,6 +23,7 @@ public class PagedSortedTypedQuery extends PagedSortedQuery {
   protected ResourceVersionFilter version;
   protected Optional<String> publicationStatusInput;
   protected ResourcePublicationStatusFilter publicationStatus;
+  protected Optional<Boolean> exactTotalInput = Optional.empty();
 
   public PagedSortedTypedQuery(PaginationConfig config) {
     super(config);
@@ -45,12 +46,27 @@ public class PagedSortedTypedQuery extends PagedSortedQuery {
     return this;
   }
 
+  /**
+   * With exactTotal=false the listing skips counting the matching resources, and only reports whether there is a
+   * next page.
+   */
+  public PagedSortedTypedQuery exactTotal(Optional<Boolean> exactTotalInput) {
+    this.exactTotalInput = exactTotalInput;
+    return this;
+  }
+
   @Override
   public PagedSortedTypedQuery sort(Optional<String> sortInput) {
     super.sort(sortInput);
     return this;
   }
 
+  @Override
+  public PagedSortedTypedQuery cursor(Optional<String> cursorInput) {
+    super.cursor(cursorInput);
+    return this;
+  }
+
   @Override
   public PagedSortedTypedQuery limit(Optional<Integer> limitInput) {
     super.limit(limitInput);
@@ -68,6 +84,7 @@ public class PagedSortedTypedQuery extends PagedSortedQuery {
     validateLimit();
     validateOffset();
     validateSorting();
+    validateCursor();
     validateResourceTypes();
     validateVersion();
     validatePublicationStatus();
@@ -173,6 +190,10 @@ public class PagedSortedTypedQuery extends PagedSortedQuery {
     }
   }
 
+  public boolean isExactTotal() {
+    return exactTotalInput.orElse(true);
+  }
+
   public ResourceVersionFilter getVersion() {
     return version;
   }
@@ -0,0 +1,68 @@
+package org.metadatacenter.util.http;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.fluent.Executor;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.metadatacenter.constant.HttpConnectionConstants;
+import org.metadatacenter.util.EnvUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HTTP client shared by all the calls between the microservices. Connections are pooled per route and kept alive
+ * between requests, so repeated calls to the same microservice do not pay the connection setup again.
+ */
+public final class PooledHttpClient {
+
+  public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 200;
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+  public static final long DEFAULT_KEEP_ALIVE_SECONDS = 30;
+  public static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+  public static final String MAX_TOTAL_CONNECTIONS_VARIABLE = "CEDAR_HTTP_CLIENT_MAX_TOTAL_CONNECTIONS";
+  public static final String MAX_CONNECTIONS_PER_ROUTE_VARIABLE = "CEDAR_HTTP_CLIENT_MAX_CONNECTIONS_PER_ROUTE";
+  public static final String KEEP_ALIVE_SECONDS_VARIABLE = "CEDAR_HTTP_CLIENT_KEEP_ALIVE_SECONDS";
+
+  private static final CloseableHttpClient client = buildClient();
+  private static final Executor executor = Executor.newInstance(client);
+
+  private PooledHttpClient() {
+  }
+
+  private static CloseableHttpClient buildClient() {
+    long keepAliveMillis = TimeUnit.SECONDS.toMillis(EnvUtil.readPositiveLong(KEEP_ALIVE_SECONDS_VARIABLE,
+        DEFAULT_KEEP_ALIVE_SECONDS));
+    PoolingHttpClientConnectionManager connectionManager =
+        new PoolingHttpClientConnectionManager(keepAliveMillis, TimeUnit.MILLISECONDS);
+    connectionManager.setMaxTotal((int) EnvUtil.readPositiveLong(MAX_TOTAL_CONNECTIONS_VARIABLE,
+        DEFAULT_MAX_TOTAL_CONNECTIONS));
+    connectionManager.setDefaultMaxPerRoute((int) EnvUtil.readPositiveLong(MAX_CONNECTIONS_PER_ROUTE_VARIABLE,
+        DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+    connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(HttpConnectionConstants.CONNECTION_TIMEOUT)
+        .setConnectionRequestTimeout(HttpConnectionConstants.CONNECTION_TIMEOUT)
+        .setSocketTimeout(HttpConnectionConstants.SOCKET_TIMEOUT)
+        .build();
+
+    // Servers that do not send a Keep-Alive header get the configured keep-alive
+    return HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setKeepAliveStrategy((response, context) -> keepAliveMillis)
+        .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+        .evictExpiredConnections()
+        .build();
+  }
+
+  public static CloseableHttpClient getClient() {
+    return client;
+  }
+
+  public static Executor getExecutor() {
+    return executor;
+  }
+}
@@ -3,6 +3,7 @@ package org.metadatacenter.util.http;
 import com.google.common.collect.Lists;
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.fluent.Request;
 import org.apache.http.entity.ContentType;
 import org.metadatacenter.constant.CedarHeaderParameters;
@@ -33,7 +34,24 @@ public class ProxyUtil {
         .socketTimeout(HttpConnectionConstants.SOCKET_TIMEOUT);
     copyHeaders(proxyRequest, context);
     try {
-      return proxyRequest.execute().returnResponse();
+      return PooledHttpClient.getExecutor().execute(proxyRequest).returnResponse();
+    } catch (IOException e) {
+      throw new CedarProcessingException(e);
+    }
+  }
+
+  /**
+   * Executes a GET and hands the response to the handler while the connection is still open, so the body can be
+   * consumed as a stream instead of being buffered first
+   */
+  public static <T> T proxyGet(String url, CedarRequestContext context, ResponseHandler<T> responseHandler) throws
+      CedarProcessingException {
+    Request proxyRequest = Request.Get(url)
+        .connectTimeout(HttpConnectionConstants.CONNECTION_TIMEOUT)
+        .socketTimeout(HttpConnectionConstants.SOCKET_TIMEOUT);
+    copyHeaders(proxyRequest, context);
+    try {
+      return PooledHttpClient.getExecutor().execute(proxyRequest).handleResponse(responseHandler);
     } catch (IOException e) {
       throw new CedarProcessingException(e);
     }
@@ -47,7 +65,7 @@ public class ProxyUtil {
         .addHeader(HttpHeaders.CONTENT_TYPE, ContentType.TEXT_PLAIN.toString());
     copyHeaders(proxyRequest, context);
     try {
-      return proxyRequest.execute().returnResponse();
+      return PooledHttpClient.getExecutor().execute(proxyRequest).returnResponse();
     } catch (IOException e) {
       throw new CedarProcessingException(e);
     }
@@ -66,7 +84,7 @@ public class ProxyUtil {
         .bodyString(content, ContentType.APPLICATION_JSON);
     copyHeaders(proxyRequest, context);
     try {
-      return proxyRequest.execute().returnResponse();
+      return PooledHttpClient.getExecutor().execute(proxyRequest).returnResponse();
     } catch (IOException e) {
       throw new CedarProcessingException(e);
     }
@@ -85,7 +103,7 @@ public class ProxyUtil {
         .bodyString(content, ContentType.APPLICATION_JSON);
     copyHeaders(proxyRequest, context);
     try {
-      return proxyRequest.execute().returnResponse();
+      return PooledHttpClient.getExecutor().execute(proxyRequest).returnResponse();
     } catch (IOException e) {
       throw new CedarProcessingException(e);
     }
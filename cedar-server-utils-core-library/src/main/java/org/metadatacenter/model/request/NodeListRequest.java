@@ -16,6 +16,7 @@ public class NodeListRequest {
   private int limit;
   private int offset;
   private List<String> sort;
+  private String cursor;
   private String q;
   private String id;
   private String categoryId;
@@ -71,6 +72,14 @@ public class NodeListRequest {
     this.sort = sort;
   }
 
+  public String getCursor() {
+    return cursor;
+  }
+
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
+
   public String getQ() {
     return q;
   }
@@ -9,6 +9,7 @@ public class AbstractNodeListResponse {
   protected NodeListRequest request;
   protected long totalCount;
   protected long currentOffset;
+  protected String nextCursor;
   protected Map<String, String> paging;
 
   public NodeListRequest getRequest() {
@@ -35,6 +36,14 @@ public class AbstractNodeListResponse {
     this.currentOffset = currentOffset;
   }
 
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
   public Map<String, String> getPaging() {
     return paging;
   }
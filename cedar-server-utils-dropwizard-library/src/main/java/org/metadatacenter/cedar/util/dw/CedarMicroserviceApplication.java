@@ -29,6 +29,7 @@ import org.metadatacenter.server.security.AuthorizationKeycloakAndApiKeyResolver
 import org.metadatacenter.server.security.IAuthorizationResolver;
 import org.metadatacenter.server.security.KeycloakDeploymentProvider;
 import org.metadatacenter.server.service.UserService;
+import org.metadatacenter.util.EnvUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +47,7 @@ public abstract class CedarMicroserviceApplication<T extends CedarMicroserviceCo
   private static final Logger log = LoggerFactory.getLogger(CedarMicroserviceApplication.class);
   private static final List<String> HTTP_HEADERS;
   private static final List<String> HTTP_METHODS;
+  private static final String CYPHER_QUERY_LOG_SAMPLE_RATE_VARIABLE = "CEDAR_CYPHER_QUERY_LOG_SAMPLE_RATE";
 
   protected static CedarConfig cedarConfig;
   protected static UserService userService;
@@ -117,6 +119,7 @@ public abstract class CedarMicroserviceApplication<T extends CedarMicroserviceCo
 
     appLoggerQueueService = new AppLoggerQueueService(cedarConfig.getCacheConfig().getPersistent());
     AppLogger.initLoggerQueueService(appLoggerQueueService, SystemComponent.getFor(getServerName()));
+    initCypherQueryLogSampleRate();
 
     //Continue with the app
     initializeApp();
@@ -141,6 +144,12 @@ public abstract class CedarMicroserviceApplication<T extends CedarMicroserviceCo
     environment.jersey().register(ResponseLoggerFilter.class);
   }
 
+  private void initCypherQueryLogSampleRate() {
+    AppLogger.setCypherQuerySampleRate(EnvUtil.readFraction(CYPHER_QUERY_LOG_SAMPLE_RATE_VARIABLE,
+        AppLogger.getCypherQuerySampleRate()));
+    log.info("Cypher query log sample rate:" + AppLogger.getCypherQuerySampleRate());
+  }
+
   private Integer getApplicationHttpPort(T configuration) {
     ServerConfig serverConfig = cedarConfig.getServers().get(getServerName());
     return configuration.getTestPort().orElse(serverConfig.getHttpPort());
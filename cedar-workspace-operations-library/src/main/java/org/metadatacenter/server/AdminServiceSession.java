@@ -19,4 +19,6 @@ public interface AdminServiceSession {
   boolean createIndex(NodeLabel nodeLabel, NodeProperty property);
 
   boolean removeAllConstraintsAndIndices();
+
+  boolean rebuildPermissionClosure();
 }
@@ -10,6 +10,8 @@ import org.metadatacenter.model.folderserver.extract.FolderServerResourceExtract
 import org.metadatacenter.model.folderserver.extract.FolderServerArtifactExtract;
 import org.metadatacenter.model.request.NodeListRequest;
 import org.metadatacenter.server.neo4j.cypher.NodeProperty;
+import org.metadatacenter.server.neo4j.cypher.sort.CountedPage;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetPage;
 import org.metadatacenter.server.security.model.user.ResourcePublicationStatusFilter;
 import org.metadatacenter.server.security.model.user.ResourceVersionFilter;
 
@@ -28,6 +30,11 @@ public interface FolderServiceSession {
 
   List<FolderServerResourceExtract> findAllNodes(int limit, int offset, List<String> sortList);
 
+  /**
+   * Keyset variant of findAllNodes. Pass a null cursor for the first page, and the returned next cursor after that.
+   */
+  KeysetPage<FolderServerResourceExtract> findAllNodesAfter(int limit, String cursor, List<String> sortList);
+
   long findAllNodesCount();
 
   FolderServerArtifact findArtifactById(CedarArtifactId artifactId);
@@ -62,6 +69,15 @@ public interface FolderServiceSession {
 
   List<FolderServerResourceExtract> findFolderContentsExtract(CedarFolderId folderId, NodeListRequest req);
 
+  KeysetPage<FolderServerResourceExtract> findFolderContentsExtractAfter(CedarFolderId folderId, NodeListRequest req);
+
+  /**
+   * Reads a page of the folder contents together with the total count in one round-trip. If exactTotal is false,
+   * the total is not computed and the page only reports whether there is a next one.
+   */
+  CountedPage<FolderServerResourceExtract> findFolderContentsExtractPage(CedarFolderId folderId, NodeListRequest req,
+                                                                         boolean exactTotal);
+
   List<Map<String, Object>> findFolderContentsExtractMap(CedarFolderId folderId, NodeListRequest req, List<String> fieldNameList);
 
   long findFolderContentsCount(CedarFolderId folderId, NodeListRequest req);
@@ -7,6 +7,9 @@ import org.metadatacenter.server.security.model.auth.CedarNodePermissionsWithExt
 import org.metadatacenter.server.security.model.auth.CedarPermission;
 import org.metadatacenter.server.security.model.permission.resource.ResourcePermissionsRequest;
 
+import java.util.List;
+import java.util.Set;
+
 public interface ResourcePermissionServiceSession {
 
   CedarNodePermissionsWithExtract getResourcePermissions(CedarFilesystemResourceId resourceId);
@@ -19,6 +22,8 @@ public interface ResourcePermissionServiceSession {
 
   boolean userHasReadAccessToResource(CedarFilesystemResourceId resourceId);
 
+  Set<String> getReadableResourceIds(List<? extends CedarFilesystemResourceId> resourceIds);
+
   boolean userHasWriteAccessToResource(CedarFilesystemResourceId resourceId);
 
   boolean userIsOwnerOfResource(CedarFilesystemResourceId resource);
@@ -6,6 +6,7 @@ import org.metadatacenter.server.neo4j.parameter.ParameterPlaceholder;
 import org.metadatacenter.server.neo4j.util.Neo4JUtil;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AbstractCypherQuery implements CypherQuery {
 
@@ -18,6 +19,11 @@ public class AbstractCypherQuery implements CypherQuery {
   protected static final Set<ParameterPlaceholder> placeholders;
   protected static final Map<String, String> replacementTable;
 
+  // Query templates come from the CypherQueryBuilder* classes, so their number is bounded. The cap is only a guard
+  // against someone building templates with inlined values.
+  private static final int RUNNABLE_QUERY_CACHE_MAX_SIZE = 4096;
+  private static final Map<String, String> runnableQueryCache = new ConcurrentHashMap<>();
+
   static {
     labels = new HashSet<>();
     Collections.addAll(labels, NodeLabel.values());
@@ -68,13 +74,49 @@ public class AbstractCypherQuery implements CypherQuery {
   }
 
   private void resolveRunnableQuery() {
-    String q = query;
-    if (q != null) {
-      for (String from : replacementTable.keySet()) {
-        q = q.replace(from, replacementTable.get(from));
+    if (query == null) {
+      runnableQuery = null;
+      return;
+    }
+    String cached = runnableQueryCache.get(query);
+    if (cached == null) {
+      cached = compileTemplate(query);
+      if (runnableQueryCache.size() < RUNNABLE_QUERY_CACHE_MAX_SIZE) {
+        runnableQueryCache.putIfAbsent(query, cached);
+      }
+    }
+    runnableQuery = cached;
+  }
+
+  /**
+   * Resolves the <LABEL.X>, <COMPOSEDLABEL.X>, <REL.X>, <PROP.X> and {<PH.X>} tokens in a single pass over the
+   * template. Anything that is not a known token (comparison operators, for example) is copied as is.
+   */
+  private static String compileTemplate(String template) {
+    int length = template.length();
+    StringBuilder sb = new StringBuilder(length);
+    int i = 0;
+    while (i < length) {
+      char c = template.charAt(i);
+      int tokenEnd = -1;
+      if (c == '<') {
+        tokenEnd = template.indexOf('>', i + 1) + 1;
+      } else if (c == '{' && i + 1 < length && template.charAt(i + 1) == '<') {
+        int close = template.indexOf('>', i + 2);
+        if (close != -1 && close + 1 < length && template.charAt(close + 1) == '}') {
+          tokenEnd = close + 2;
+        }
+      }
+      String replacement = tokenEnd > 0 ? replacementTable.get(template.substring(i, tokenEnd)) : null;
+      if (replacement != null) {
+        sb.append(replacement);
+        i = tokenEnd;
+      } else {
+        sb.append(c);
+        i++;
       }
     }
-    runnableQuery = q;
+    return sb.toString();
   }
 
 
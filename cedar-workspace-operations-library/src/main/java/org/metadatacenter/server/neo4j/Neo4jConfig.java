@@ -1,9 +1,20 @@
 package org.metadatacenter.server.neo4j;
 
 import org.metadatacenter.config.CedarConfig;
+import org.metadatacenter.util.EnvUtil;
 
 public class Neo4jConfig {
 
+  public static final int DEFAULT_MAX_CONNECTION_POOL_SIZE = 50;
+  public static final long DEFAULT_CONNECTION_ACQUISITION_TIMEOUT_SECONDS = 60;
+  public static final long DEFAULT_MAX_CONNECTION_LIFETIME_SECONDS = 3600;
+
+  public static final String MAX_CONNECTION_POOL_SIZE_VARIABLE = "CEDAR_NEO4J_BOLT_MAX_CONNECTION_POOL_SIZE";
+  public static final String CONNECTION_ACQUISITION_TIMEOUT_VARIABLE =
+      "CEDAR_NEO4J_BOLT_CONNECTION_ACQUISITION_TIMEOUT_SECONDS";
+  public static final String MAX_CONNECTION_LIFETIME_VARIABLE = "CEDAR_NEO4J_BOLT_MAX_CONNECTION_LIFETIME_SECONDS";
+  public static final String PERMISSION_CLOSURE_ENABLED_VARIABLE = "CEDAR_NEO4J_PERMISSION_CLOSURE_ENABLED";
+
   private final String rootFolderPath;
   private final String rootFolderDescription;
   private final String usersFolderPath;
@@ -16,6 +27,10 @@ public class Neo4jConfig {
   private final String uri;
   private final String userName;
   private final String userPassword;
+  private final int maxConnectionPoolSize;
+  private final long connectionAcquisitionTimeoutSeconds;
+  private final long maxConnectionLifetimeSeconds;
+  private final boolean permissionClosureEnabled;
 
 
   private Neo4jConfig(CedarConfig cedarConfig) {
@@ -31,6 +46,13 @@ public class Neo4jConfig {
     this.uri = cedarConfig.getNeo4jConfig().getBolt().getUri();
     this.userName = cedarConfig.getNeo4jConfig().getBolt().getUserName();
     this.userPassword = cedarConfig.getNeo4jConfig().getBolt().getUserPassword();
+    this.maxConnectionPoolSize = (int) EnvUtil.readPositiveLong(MAX_CONNECTION_POOL_SIZE_VARIABLE,
+        DEFAULT_MAX_CONNECTION_POOL_SIZE);
+    this.connectionAcquisitionTimeoutSeconds = EnvUtil.readPositiveLong(CONNECTION_ACQUISITION_TIMEOUT_VARIABLE,
+        DEFAULT_CONNECTION_ACQUISITION_TIMEOUT_SECONDS);
+    this.maxConnectionLifetimeSeconds = EnvUtil.readPositiveLong(MAX_CONNECTION_LIFETIME_VARIABLE,
+        DEFAULT_MAX_CONNECTION_LIFETIME_SECONDS);
+    this.permissionClosureEnabled = EnvUtil.readBoolean(PERMISSION_CLOSURE_ENABLED_VARIABLE, false);
   }
 
   public String getRootFolderPath() {
@@ -84,4 +106,25 @@ public class Neo4jConfig {
   public String getUserPassword() {
     return userPassword;
   }
+
+  public int getMaxConnectionPoolSize() {
+    return maxConnectionPoolSize;
+  }
+
+  public long getConnectionAcquisitionTimeoutSeconds() {
+    return connectionAcquisitionTimeoutSeconds;
+  }
+
+  public long getMaxConnectionLifetimeSeconds() {
+    return maxConnectionLifetimeSeconds;
+  }
+
+  /**
+   * If enabled, the effective permissions are materialized in the graph and the access checks read them with a
+   * single hop. The closure must be built with AdminServiceSession.rebuildPermissionClosure before enabling it on an
+   * existing graph.
+   */
+  public boolean isPermissionClosureEnabled() {
+    return permissionClosureEnabled;
+  }
 }
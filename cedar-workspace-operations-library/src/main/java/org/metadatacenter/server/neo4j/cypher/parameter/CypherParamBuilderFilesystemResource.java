@@ -3,6 +3,7 @@ package org.metadatacenter.server.neo4j.cypher.parameter;
 import org.metadatacenter.id.*;
 import org.metadatacenter.model.CedarResourceType;
 import org.metadatacenter.server.neo4j.cypher.NodeProperty;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetCursor;
 import org.metadatacenter.server.neo4j.parameter.CypherParameters;
 import org.metadatacenter.server.neo4j.parameter.ParameterPlaceholder;
 import org.metadatacenter.server.security.model.auth.NodeSharePermission;
@@ -30,6 +31,15 @@ public class CypherParamBuilderFilesystemResource extends AbstractCypherParamBui
     return params;
   }
 
+  public static CypherParameters getAllResourcesKeysetLookupParameters(long limit, KeysetCursor cursor) {
+    CypherParameters params = new CypherParameters();
+    params.put(ParameterPlaceholder.LIMIT, limit);
+    if (cursor != null) {
+      params.put(ParameterPlaceholder.KEYSET_VALUES, cursor);
+    }
+    return params;
+  }
+
   public static CypherParameters getResourceByParentIdAndName(CedarFolderId parentId, String name) {
     CypherParameters params = new CypherParameters();
     params.put(ParameterPlaceholder.ID, parentId);
@@ -153,7 +163,7 @@ public class CypherParamBuilderFilesystemResource extends AbstractCypherParamBui
     return params;
   }
 
-  public static CypherParameters matchFilesystemResource(CedarFilesystemResourceId resourceId) {
+  public static CypherParameters matchFilesystemResource(CedarResourceId resourceId) {
     CypherParameters params = new CypherParameters();
     params.put(ParameterPlaceholder.FS_RESOURCE_ID, resourceId);
     return params;
@@ -173,6 +183,33 @@ public class CypherParamBuilderFilesystemResource extends AbstractCypherParamBui
     return params;
   }
 
+  public static CypherParameters matchFilesystemResourcesAndUser(List<String> resourceIds, CedarUserId userId) {
+    CypherParameters params = new CypherParameters();
+    params.put(ParameterPlaceholder.FS_RESOURCE_ID_LIST, resourceIds);
+    params.put(ParameterPlaceholder.USER_ID, userId);
+    return params;
+  }
+
+  public static CypherParameters matchFilesystemResources(List<String> resourceIds) {
+    CypherParameters params = new CypherParameters();
+    params.put(ParameterPlaceholder.FS_RESOURCE_ID_LIST, resourceIds);
+    return params;
+  }
+
+  public static CypherParameters getFilesystemResourceIdsAfterParameters(String lastResourceId, int limit) {
+    CypherParameters params = new CypherParameters();
+    params.put(ParameterPlaceholder.ID, lastResourceId);
+    params.put(ParameterPlaceholder.LIMIT, limit);
+    return params;
+  }
+
+  public static CypherParameters matchFilesystemResourceAndPrincipals(CedarFilesystemResourceId resourceId, List<String> principalIds) {
+    CypherParameters params = new CypherParameters();
+    params.put(ParameterPlaceholder.FS_RESOURCE_ID, resourceId);
+    params.put(ParameterPlaceholder.PRINCIPAL_ID_LIST, principalIds);
+    return params;
+  }
+
   public static CypherParameters getSpecialFoldersLookupParameters(int limit, int offset, CedarUserId ownerId) {
     CypherParameters params = new CypherParameters();
     params.put(ParameterPlaceholder.LIMIT, limit);
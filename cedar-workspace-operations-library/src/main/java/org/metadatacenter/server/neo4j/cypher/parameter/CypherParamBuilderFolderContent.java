@@ -4,6 +4,7 @@ import org.metadatacenter.id.CedarFolderId;
 import org.metadatacenter.id.CedarUserId;
 import org.metadatacenter.model.CedarResourceType;
 import org.metadatacenter.server.neo4j.cypher.NodeProperty;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetCursor;
 import org.metadatacenter.server.neo4j.parameter.CypherParameters;
 import org.metadatacenter.server.neo4j.parameter.ParameterPlaceholder;
 import org.metadatacenter.server.security.model.user.ResourcePublicationStatusFilter;
@@ -37,4 +38,20 @@ public class CypherParamBuilderFolderContent extends AbstractCypherParamBuilder
     return params;
   }
 
+  public static CypherParameters getFolderContentsKeysetLookupParameters(CedarFolderId folderId, Collection<CedarResourceType> resourceTypes,
+                                                                         ResourcePublicationStatusFilter publicationStatus, long limit,
+                                                                         KeysetCursor cursor) {
+    CypherParameters params = new CypherParameters();
+    params.put(ParameterPlaceholder.FOLDER_ID, folderId);
+    params.addResourceTypes(resourceTypes);
+    if (publicationStatus != null) {
+      params.put(ParameterPlaceholder.PUBLICATION_STATUS, publicationStatus.getValue());
+    }
+    params.put(ParameterPlaceholder.LIMIT, limit);
+    if (cursor != null) {
+      params.put(ParameterPlaceholder.KEYSET_VALUES, cursor);
+    }
+    return params;
+  }
+
 }
@@ -12,6 +12,7 @@ import org.metadatacenter.server.neo4j.parameter.ParameterPlaceholder;
 import org.metadatacenter.server.neo4j.util.Neo4JUtil;
 import org.metadatacenter.server.security.model.user.ResourceVersionFilter;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class AbstractCypherQueryBuilder {
@@ -179,6 +180,85 @@ public abstract class AbstractCypherQueryBuilder {
     return sb.toString();
   }
 
+  protected static final class KeysetKey {
+    private final String expression;
+    private final boolean descending;
+
+    KeysetKey(String expression, boolean descending) {
+      this.expression = expression;
+      this.descending = descending;
+    }
+  }
+
+  /**
+   * Keyset paging needs total ordering and non-null keys, so the sort expressions are coalesced and the id is
+   * appended as the final tiebreaker.
+   */
+  protected static List<KeysetKey> getKeysetKeys(String nodeAlias, List<String> sortList) {
+    List<KeysetKey> keys = new ArrayList<>();
+    for (String s : sortList) {
+      if (s != null) {
+        boolean descending = s.startsWith("-");
+        String fieldName = descending ? s.substring(1) : s;
+        String expression;
+        if (QuerySortOptions.isTextual(fieldName)) {
+          expression = "coalesce(toLower(" + nodeAlias + "." + QuerySortOptions.getFieldName(fieldName) + "), '')";
+        } else {
+          expression = "coalesce(" + nodeAlias + "." + QuerySortOptions.getFieldName(fieldName) + ", 0)";
+        }
+        keys.add(new KeysetKey(expression, descending));
+      }
+    }
+    return keys;
+  }
+
+  protected static KeysetKey getKeysetKey(String expression, boolean descending) {
+    return new KeysetKey(expression, descending);
+  }
+
+  protected static String getKeysetConditions(String relationPrefix, String nodeAlias, List<KeysetKey> keys) {
+    List<KeysetKey> allKeys = new ArrayList<>(keys);
+    allKeys.add(new KeysetKey(nodeAlias + ".<PROP.ID>", false));
+    StringBuilder sb = new StringBuilder();
+    sb.append(" ").append(relationPrefix).append(" ");
+    int open = 0;
+    for (int i = 0; i < allKeys.size(); i++) {
+      KeysetKey key = allKeys.get(i);
+      String value = "{<PH.KEYSET_VALUES>}[" + i + "]";
+      if (i > 0) {
+        sb.append(" OR (").append(allKeys.get(i - 1).expression).append(" = ")
+            .append("{<PH.KEYSET_VALUES>}[").append(i - 1).append("] AND ");
+        open++;
+      }
+      sb.append("(").append(key.expression).append(key.descending ? " < " : " > ").append(value);
+      open++;
+    }
+    for (int i = 0; i < open; i++) {
+      sb.append(")");
+    }
+    return sb.toString();
+  }
+
+  protected static String getKeysetReturnExpression(String nodeAlias, List<KeysetKey> keys) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(" RETURN ").append(nodeAlias).append(", [");
+    for (KeysetKey key : keys) {
+      sb.append(key.expression).append(", ");
+    }
+    sb.append(nodeAlias).append(".<PROP.ID>] AS sortKey");
+    return sb.toString();
+  }
+
+  protected static String getKeysetOrderByExpression(String nodeAlias, List<KeysetKey> keys) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(" ORDER BY ");
+    for (KeysetKey key : keys) {
+      sb.append(key.expression).append(key.descending ? " DESC, " : " ASC, ");
+    }
+    sb.append(nodeAlias).append(".<PROP.ID> ASC");
+    return sb.toString();
+  }
+
   public static String addRelation(NodeLabel fromLabel, NodeLabel toLabel, RelationLabel relation) {
     return "" +
         " MATCH (fromResource:" + fromLabel + " {<PROP.ID>:$fromId })" +
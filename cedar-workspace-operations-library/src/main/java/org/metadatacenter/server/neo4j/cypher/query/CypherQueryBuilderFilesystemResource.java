@@ -48,6 +48,19 @@ public class CypherQueryBuilderFilesystemResource extends AbstractCypherQueryBui
         " LIMIT $limit";
   }
 
+  public static String getAllResourcesKeysetLookupQuery(List<String> sortList, boolean afterCursor) {
+    List<KeysetKey> keys = getKeysetKeys("resource", sortList);
+    StringBuilder sb = new StringBuilder();
+    sb.append(" MATCH (resource:<LABEL.FILESYSTEM_RESOURCE>)");
+    if (afterCursor) {
+      sb.append(getKeysetConditions("WHERE", "resource", keys));
+    }
+    sb.append(getKeysetReturnExpression("resource", keys));
+    sb.append(getKeysetOrderByExpression("resource", keys));
+    sb.append(" LIMIT $limit");
+    return sb.toString();
+  }
+
   public static String getAllResourceCountQuery() {
     return "" +
         " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE>)" +
@@ -39,6 +39,44 @@ public class CypherQueryBuilderFilesystemResourcePermission extends AbstractCyph
         " RETURN resource";
   }
 
+  public static String addPermissionsToFilesystemResourceForUsers(FilesystemResourcePermission permission) {
+    return "" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:{<PH.FS_RESOURCE_ID>}})" +
+        " UNWIND {<PH.PRINCIPAL_ID_LIST>} AS principalId" +
+        " MATCH (user:<LABEL.USER> {<PROP.ID>:principalId})" +
+        " MERGE (user)-[:" + RelationLabel.forFilesystemResourcePermission(permission) + "]->(resource)" +
+        " RETURN count(user)";
+  }
+
+  public static String addPermissionsToFilesystemResourceForGroups(FilesystemResourcePermission permission) {
+    return "" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:{<PH.FS_RESOURCE_ID>}})" +
+        " UNWIND {<PH.PRINCIPAL_ID_LIST>} AS principalId" +
+        " MATCH (group:<LABEL.GROUP> {<PROP.ID>:principalId})" +
+        " MERGE (group)-[:" + RelationLabel.forFilesystemResourcePermission(permission) + "]->(resource)" +
+        " RETURN count(group)";
+  }
+
+  public static String removePermissionsForFilesystemResourceFromUsers(FilesystemResourcePermission permission) {
+    return "" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:{<PH.FS_RESOURCE_ID>}})" +
+        " UNWIND {<PH.PRINCIPAL_ID_LIST>} AS principalId" +
+        " MATCH (user:<LABEL.USER> {<PROP.ID>:principalId})" +
+        " MATCH (user)-[relation:" + RelationLabel.forFilesystemResourcePermission(permission) + "]->(resource)" +
+        " DELETE (relation)" +
+        " RETURN count(user)";
+  }
+
+  public static String removePermissionsForFilesystemResourceFromGroups(FilesystemResourcePermission permission) {
+    return "" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:{<PH.FS_RESOURCE_ID>}})" +
+        " UNWIND {<PH.PRINCIPAL_ID_LIST>} AS principalId" +
+        " MATCH (group:<LABEL.GROUP> {<PROP.ID>:principalId})" +
+        " MATCH (group)-[relation:" + RelationLabel.forFilesystemResourcePermission(permission) + "]->(resource)" +
+        " DELETE (relation)" +
+        " RETURN count(group)";
+  }
+
   public static String userCanReadFilesystemResource() {
     return userHasPermissionOnFilesystemResource(RelationLabel.CANREAD);
   }
@@ -66,6 +104,15 @@ public class CypherQueryBuilderFilesystemResourcePermission extends AbstractCyph
     return sb.toString();
   }
 
+  public static String getReadableFilesystemResourceIds() {
+    return "" +
+        " MATCH (user:<LABEL.USER> {<PROP.ID>:{<PH.USER_ID>}})" +
+        " UNWIND {<PH.FS_RESOURCE_ID_LIST>} AS resourceId" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:resourceId})" +
+        getResourcePermissionConditions("WHERE", "resource") +
+        " RETURN DISTINCT resource.<PROP.ID>";
+  }
+
   public static String getUsersWithDirectPermissionOnFilesystemResource(RelationLabel relationLabel) {
     return "" +
         " MATCH (user:<LABEL.USER>)" +
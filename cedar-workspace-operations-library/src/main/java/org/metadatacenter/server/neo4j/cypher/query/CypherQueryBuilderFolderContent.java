@@ -3,6 +3,7 @@ package org.metadatacenter.server.neo4j.cypher.query;
 import org.metadatacenter.server.security.model.user.ResourcePublicationStatusFilter;
 import org.metadatacenter.server.security.model.user.ResourceVersionFilter;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class CypherQueryBuilderFolderContent extends AbstractCypherQueryBuilder {
@@ -17,16 +18,7 @@ public class CypherQueryBuilderFolderContent extends AbstractCypherQueryBuilder
 
   public static String getFolderContentsFilteredCountQuery(ResourceVersionFilter version, ResourcePublicationStatusFilter publicationStatus) {
     StringBuilder sb = new StringBuilder();
-    sb.append(" MATCH (parent:<LABEL.FOLDER> {<PROP.ID>:{<PH.FOLDER_ID>}})");
-    sb.append(" MATCH (child)");
-    sb.append(" MATCH (parent)-[:<REL.CONTAINS>]->(child)");
-    sb.append(" WHERE child.<PROP.RESOURCE_TYPE> in $resourceTypeList");
-    if (version != null && version != ResourceVersionFilter.ALL) {
-      sb.append(getVersionConditions(version, " AND ", "child"));
-    }
-    if (publicationStatus != null && publicationStatus != ResourcePublicationStatusFilter.ALL) {
-      sb.append(getPublicationStatusConditions(" AND ", "child"));
-    }
+    appendFolderContentsFilter(sb, version, publicationStatus);
     sb.append(" RETURN count(child)");
     return sb.toString();
   }
@@ -34,6 +26,48 @@ public class CypherQueryBuilderFolderContent extends AbstractCypherQueryBuilder
   public static String getFolderContentsFilteredLookupQuery(List<String> sortList, ResourceVersionFilter version,
                                                             ResourcePublicationStatusFilter publicationStatus) {
     StringBuilder sb = new StringBuilder();
+    appendFolderContentsFilter(sb, version, publicationStatus);
+    sb.append(" RETURN child");
+    sb.append(getFolderContentsOrderByExpression(sortList));
+    sb.append(" SKIP $offset");
+    sb.append(" LIMIT $limit");
+    return sb.toString();
+  }
+
+  /**
+   * Returns the total count of the matching children and the requested page in a single record, so the folder is
+   * traversed only once per listing.
+   */
+  public static String getFolderContentsFilteredLookupWithCountQuery(List<String> sortList, ResourceVersionFilter version,
+                                                                     ResourcePublicationStatusFilter publicationStatus) {
+    StringBuilder sb = new StringBuilder();
+    appendFolderContentsFilter(sb, version, publicationStatus);
+    sb.append(" WITH child");
+    sb.append(getFolderContentsOrderByExpression(sortList));
+    sb.append(" WITH collect(child) AS children");
+    sb.append(" RETURN size(children), children[$offset..($offset + $limit)]");
+    return sb.toString();
+  }
+
+  public static String getFolderContentsKeysetLookupQuery(List<String> sortList, ResourceVersionFilter version,
+                                                          ResourcePublicationStatusFilter publicationStatus, boolean afterCursor) {
+    List<KeysetKey> keys = new ArrayList<>();
+    keys.add(getKeysetKey("child.<PROP.NODE_SORT_ORDER>", false));
+    keys.addAll(getKeysetKeys("child", sortList));
+    keys.add(getKeysetKey("coalesce(child.<PROP.VERSION>, '')", true));
+    StringBuilder sb = new StringBuilder();
+    appendFolderContentsFilter(sb, version, publicationStatus);
+    if (afterCursor) {
+      sb.append(getKeysetConditions("AND", "child", keys));
+    }
+    sb.append(getKeysetReturnExpression("child", keys));
+    sb.append(getKeysetOrderByExpression("child", keys));
+    sb.append(" LIMIT $limit");
+    return sb.toString();
+  }
+
+  private static void appendFolderContentsFilter(StringBuilder sb, ResourceVersionFilter version,
+                                                 ResourcePublicationStatusFilter publicationStatus) {
     sb.append(" MATCH (parent:<LABEL.FOLDER> {<PROP.ID>:{<PH.FOLDER_ID>}})");
     sb.append(" MATCH (child)");
     sb.append(" MATCH (parent)-[:<REL.CONTAINS>]->(child)");
@@ -44,14 +78,10 @@ public class CypherQueryBuilderFolderContent extends AbstractCypherQueryBuilder
     if (publicationStatus != null && publicationStatus != ResourcePublicationStatusFilter.ALL) {
       sb.append(getPublicationStatusConditions(" AND ", "child"));
     }
-    sb.append(" RETURN child");
-    sb.append(" ORDER BY child.<PROP.NODE_SORT_ORDER>,");
-    sb.append(getOrderByExpression("child", sortList));
-    sb.append(", child.<PROP.VERSION> DESC");
-    sb.append(" SKIP $offset");
-    sb.append(" LIMIT $limit");
-    return sb.toString();
   }
 
+  private static String getFolderContentsOrderByExpression(List<String> sortList) {
+    return " ORDER BY child.<PROP.NODE_SORT_ORDER>, " + getOrderByExpression("child", sortList) + ", child.<PROP.VERSION> DESC";
+  }
 
 }
@@ -4,17 +4,23 @@ import org.metadatacenter.model.RelationLabel;
 
 public class CypherQueryBuilderGraph extends AbstractCypherQueryBuilder {
 
+  // The materialized permission closure is derived data, it is recomputed on import instead of being exported
+  private static final String NOT_CLOSURE_ARC = "" +
+      " WHERE NOT type(r) IN ['" + CypherQueryBuilderPermissionClosure.EFFECTIVE_CANREAD + "', '" +
+      CypherQueryBuilderPermissionClosure.EFFECTIVE_CANWRITE + "']";
 
   public static String getOutgoingArcs() {
     return "" +
         "MATCH" +
-        " (s {<PROP.ID>:{<PH.ID>}})-[r]->(t) RETURN s.<PROP.ID> AS sid, TYPE(r) AS type, t.<PROP.ID> AS tid ORDER BY s.<PROP.ID>, t.<PROP.ID>, type(r)";
+        " (s {<PROP.ID>:{<PH.ID>}})-[r]->(t)" + NOT_CLOSURE_ARC +
+        " RETURN s.<PROP.ID> AS sid, TYPE(r) AS type, t.<PROP.ID> AS tid ORDER BY s.<PROP.ID>, t.<PROP.ID>, type(r)";
   }
 
   public static String getIncomingArcs() {
     return "" +
         "MATCH" +
-        " (s)-[r]->(t {<PROP.ID>:{<PH.ID>}}) RETURN s.<PROP.ID> AS sid, TYPE(r) AS type, t.<PROP.ID> AS tid ORDER BY s.<PROP.ID>, t.<PROP.ID>, type(r)";
+        " (s)-[r]->(t {<PROP.ID>:{<PH.ID>}})" + NOT_CLOSURE_ARC +
+        " RETURN s.<PROP.ID> AS sid, TYPE(r) AS type, t.<PROP.ID> AS tid ORDER BY s.<PROP.ID>, t.<PROP.ID>, type(r)";
   }
 
   public static String createArc(RelationLabel relationLabel) {
@@ -0,0 +1,150 @@
+package org.metadatacenter.server.neo4j.cypher.query;
+
+/**
+ * Queries of the materialized permission closure. Every principal gets an EFFECTIVECANREAD edge to each resource it
+ * can read and an EFFECTIVECANWRITE edge to each resource it can write, taking ownership and inheritance along the
+ * CONTAINS hierarchy into account. The everybody permissions found on the resource and its ancestors are copied onto
+ * the resource. Group membership is not flattened, so membership changes do not invalidate the closure.
+ */
+public class CypherQueryBuilderPermissionClosure extends AbstractCypherQueryBuilder {
+
+  public static final String EFFECTIVE_CANREAD = "EFFECTIVECANREAD";
+  public static final String EFFECTIVE_CANWRITE = "EFFECTIVECANWRITE";
+  public static final String EFFECTIVE_EVERYBODY_PERMISSIONS = "effectiveEverybodyPermissions";
+
+  private static final String SUBTREE = "" +
+      " MATCH (root:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:{<PH.FS_RESOURCE_ID>}})" +
+      "-[:<REL.CONTAINS>*0..]->(resource:<LABEL.FILESYSTEM_RESOURCE>)" +
+      " WITH DISTINCT resource";
+
+  private static final String RESOURCE_LIST = "" +
+      " UNWIND {<PH.FS_RESOURCE_ID_LIST>} AS resourceId" +
+      " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:resourceId})";
+
+  public static String deleteClosureOfSubtree() {
+    return deleteClosure(SUBTREE);
+  }
+
+  public static String createReadClosureOfSubtree() {
+    return createClosure(SUBTREE, "<REL.OWNS>|<REL.CANREAD>|<REL.CANWRITE>", EFFECTIVE_CANREAD);
+  }
+
+  public static String createWriteClosureOfSubtree() {
+    return createClosure(SUBTREE, "<REL.OWNS>|<REL.CANWRITE>", EFFECTIVE_CANWRITE);
+  }
+
+  public static String setEverybodyClosureOfSubtree() {
+    return setEverybodyClosure(SUBTREE);
+  }
+
+  /**
+   * Reads the next batch of resource ids in id order, for rebuilding the closure of all resources batch by batch
+   */
+  public static String getFilesystemResourceIdsAfter() {
+    return "" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE>)" +
+        " WHERE resource.<PROP.ID> > {<PH.ID>}" +
+        " RETURN resource.<PROP.ID>" +
+        " ORDER BY resource.<PROP.ID>" +
+        " LIMIT {<PH.LIMIT>}";
+  }
+
+  public static String deleteClosureOfResources() {
+    return deleteClosure(RESOURCE_LIST);
+  }
+
+  public static String createReadClosureOfResources() {
+    return createClosure(RESOURCE_LIST, "<REL.OWNS>|<REL.CANREAD>|<REL.CANWRITE>", EFFECTIVE_CANREAD);
+  }
+
+  public static String createWriteClosureOfResources() {
+    return createClosure(RESOURCE_LIST, "<REL.OWNS>|<REL.CANWRITE>", EFFECTIVE_CANWRITE);
+  }
+
+  public static String setEverybodyClosureOfResources() {
+    return setEverybodyClosure(RESOURCE_LIST);
+  }
+
+  private static String deleteClosure(String resources) {
+    return resources +
+        " MATCH ()-[closure:" + EFFECTIVE_CANREAD + "|" + EFFECTIVE_CANWRITE + "]->(resource)" +
+        " DELETE closure";
+  }
+
+  private static String createClosure(String resources, String grantingRelations, String closureRelation) {
+    return resources +
+        " MATCH (principal)-[:" + grantingRelations + "]->()-[:<REL.CONTAINS>*0..]->(resource)" +
+        " WITH DISTINCT principal, resource" +
+        " MERGE (principal)-[:" + closureRelation + "]->(resource)";
+  }
+
+  private static String setEverybodyClosure(String resources) {
+    return resources +
+        " OPTIONAL MATCH (ancestor:<LABEL.FILESYSTEM_RESOURCE>)-[:<REL.CONTAINS>*0..]->(resource)" +
+        " WHERE ancestor.<PROP.EVERYBODY_PERMISSION> IS NOT NULL" +
+        " WITH resource, collect(ancestor.<PROP.EVERYBODY_PERMISSION>) AS permissions" +
+        " SET resource." + EFFECTIVE_EVERYBODY_PERMISSIONS + " = permissions";
+  }
+
+  public static String userCanReadFilesystemResource() {
+    return userHasEffectivePermissionOnFilesystemResource(EFFECTIVE_CANREAD);
+  }
+
+  public static String userCanWriteFilesystemResource() {
+    return userHasEffectivePermissionOnFilesystemResource(EFFECTIVE_CANWRITE);
+  }
+
+  private static String userHasEffectivePermissionOnFilesystemResource(String closureRelation) {
+    return "" +
+        " MATCH (user:<LABEL.USER> {<PROP.ID>:{<PH.USER_ID>}})" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:{<PH.FS_RESOURCE_ID>}})" +
+        " WHERE (user)-[:<REL.MEMBEROF>*0..1]->()-[:" + closureRelation + "]->(resource)" +
+        " RETURN user";
+  }
+
+  public static String getReadableFilesystemResourceIds() {
+    return "" +
+        " MATCH (user:<LABEL.USER> {<PROP.ID>:{<PH.USER_ID>}})" +
+        " UNWIND {<PH.FS_RESOURCE_ID_LIST>} AS resourceId" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:resourceId})" +
+        " WHERE (user)-[:<REL.MEMBEROF>*0..1]->()-[:" + EFFECTIVE_CANREAD + "]->(resource)" +
+        " RETURN DISTINCT resource.<PROP.ID>";
+  }
+
+  public static String getUserIdsWithEffectiveReadOnFilesystemResource() {
+    return getUserIdsWithEffectivePermissionOnFilesystemResource(EFFECTIVE_CANREAD);
+  }
+
+  public static String getUserIdsWithEffectiveWriteOnFilesystemResource() {
+    return getUserIdsWithEffectivePermissionOnFilesystemResource(EFFECTIVE_CANWRITE);
+  }
+
+  private static String getUserIdsWithEffectivePermissionOnFilesystemResource(String closureRelation) {
+    return "" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:{<PH.FS_RESOURCE_ID>}})" +
+        " MATCH (user:<LABEL.USER>)-[:<REL.MEMBEROF>*0..1]->()-[:" + closureRelation + "]->(resource)" +
+        " RETURN DISTINCT user.<PROP.ID>";
+  }
+
+  public static String getGroupIdsWithEffectiveReadOnFilesystemResource() {
+    return getGroupIdsWithEffectivePermissionOnFilesystemResource(EFFECTIVE_CANREAD);
+  }
+
+  public static String getGroupIdsWithEffectiveWriteOnFilesystemResource() {
+    return getGroupIdsWithEffectivePermissionOnFilesystemResource(EFFECTIVE_CANWRITE);
+  }
+
+  private static String getGroupIdsWithEffectivePermissionOnFilesystemResource(String closureRelation) {
+    return "" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:{<PH.FS_RESOURCE_ID>}})" +
+        " MATCH (group:<LABEL.GROUP>)-[:" + closureRelation + "]->(resource)" +
+        " RETURN group.<PROP.ID>";
+  }
+
+  public static String getEffectiveEverybodyPermission() {
+    return "" +
+        " MATCH (resource:<LABEL.FILESYSTEM_RESOURCE> {<PROP.ID>:{<PH.ID>}})" +
+        " UNWIND resource." + EFFECTIVE_EVERYBODY_PERMISSIONS + " AS everybodyPermission" +
+        " RETURN resource.<PROP.ID> AS resourceId, everybodyPermission";
+  }
+}
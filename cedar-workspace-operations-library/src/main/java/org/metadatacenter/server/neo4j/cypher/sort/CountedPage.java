@@ -0,0 +1,33 @@
+package org.metadatacenter.server.neo4j.cypher.sort;
+
+import java.util.List;
+
+public class CountedPage<T> {
+
+  public static final long UNKNOWN_TOTAL = -1;
+
+  private final List<T> resources;
+  private final long totalCount;
+  private final boolean hasNext;
+
+  public CountedPage(List<T> resources, long totalCount, boolean hasNext) {
+    this.resources = resources;
+    this.totalCount = totalCount;
+    this.hasNext = hasNext;
+  }
+
+  public List<T> getResources() {
+    return resources;
+  }
+
+  /**
+   * @return the total number of matching resources, or UNKNOWN_TOTAL if it was not computed
+   */
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  public boolean hasNext() {
+    return hasNext;
+  }
+}
@@ -0,0 +1,95 @@
+package org.metadatacenter.server.neo4j.cypher.sort;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.metadatacenter.util.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Continuation token for keyset pagination. It carries the sort key values and the id of the last row of the
+ * previous page, plus the sort specification they belong to. Clients treat the encoded form as opaque.
+ */
+public class KeysetCursor {
+
+  private static final String FIELD_SORT = "s";
+  private static final String FIELD_VALUES = "v";
+  private static final String FIELD_ID = "id";
+
+  private final String sort;
+  private final List<Object> sortValues;
+  private final String id;
+
+  public KeysetCursor(String sort, List<Object> sortValues, String id) {
+    this.sort = sort;
+    this.sortValues = sortValues;
+    this.id = id;
+  }
+
+  public String getSort() {
+    return sort;
+  }
+
+  public List<Object> getSortValues() {
+    return sortValues;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Values to compare against, in ORDER BY order, with the id as the last element.
+   */
+  public List<Object> getKeyValues() {
+    List<Object> values = new ArrayList<>(sortValues);
+    values.add(id);
+    return values;
+  }
+
+  public String encode() {
+    ObjectNode node = JsonMapper.MAPPER.createObjectNode();
+    node.put(FIELD_SORT, sort);
+    ArrayNode values = node.putArray(FIELD_VALUES);
+    for (Object value : sortValues) {
+      values.add(JsonMapper.MAPPER.valueToTree(value));
+    }
+    node.put(FIELD_ID, id);
+    byte[] json = node.toString().getBytes(StandardCharsets.UTF_8);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+  }
+
+  public static KeysetCursor decode(String token) {
+    if (token == null || token.isEmpty()) {
+      throw new IllegalArgumentException("Empty keyset cursor");
+    }
+    JsonNode node;
+    try {
+      byte[] json = Base64.getUrlDecoder().decode(token);
+      node = JsonMapper.MAPPER.readTree(json);
+    } catch (IllegalArgumentException | IOException e) {
+      throw new IllegalArgumentException("Malformed keyset cursor", e);
+    }
+    if (node == null || !node.has(FIELD_SORT) || !node.has(FIELD_ID) || !node.path(FIELD_VALUES).isArray()) {
+      throw new IllegalArgumentException("Malformed keyset cursor");
+    }
+    List<Object> values = new ArrayList<>();
+    for (JsonNode value : node.get(FIELD_VALUES)) {
+      if (value.isIntegralNumber()) {
+        values.add(value.asLong());
+      } else if (value.isNumber()) {
+        values.add(value.asDouble());
+      } else if (value.isTextual()) {
+        values.add(value.asText());
+      } else {
+        throw new IllegalArgumentException("Malformed keyset cursor");
+      }
+    }
+    return new KeysetCursor(node.get(FIELD_SORT).asText(), values, node.get(FIELD_ID).asText());
+  }
+}
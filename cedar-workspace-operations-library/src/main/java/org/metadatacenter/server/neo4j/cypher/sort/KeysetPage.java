@@ -0,0 +1,25 @@
+package org.metadatacenter.server.neo4j.cypher.sort;
+
+import java.util.List;
+
+public class KeysetPage<T> {
+
+  private final List<T> resources;
+  private final String nextCursor;
+
+  public KeysetPage(List<T> resources, String nextCursor) {
+    this.resources = resources;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<T> getResources() {
+    return resources;
+  }
+
+  /**
+   * @return the cursor of the following page, or null if this was the last one
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+}
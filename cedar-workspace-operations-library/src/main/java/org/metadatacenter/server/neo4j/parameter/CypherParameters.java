@@ -7,6 +7,7 @@ import org.metadatacenter.model.CedarResourceType;
 import org.metadatacenter.model.ResourceVersion;
 import org.metadatacenter.server.neo4j.cypher.CypherQueryParameter;
 import org.metadatacenter.server.neo4j.cypher.NodeProperty;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetCursor;
 import org.metadatacenter.server.neo4j.util.Neo4JUtil;
 
 import java.util.*;
@@ -43,6 +44,10 @@ public class CypherParameters {
     map.put(parameter, value);
   }
 
+  public void put(CypherQueryParameter parameter, KeysetCursor cursor) {
+    map.put(parameter, cursor.getKeyValues());
+  }
+
   public void put(CypherQueryParameter parameter, JsonNode value) {
     map.put(parameter, value);
   }
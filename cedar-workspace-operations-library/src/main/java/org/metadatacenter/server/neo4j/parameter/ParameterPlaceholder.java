@@ -29,7 +29,10 @@ public enum ParameterPlaceholder implements CypherQueryParameter {
   PUBLICATION_STATUS("publicationStatus"),
   PARENT_CATEGORY_ID("parentCategoryId"),
   IDENTIFIER("identifier"),
-  API_KEY("apiKey");
+  API_KEY("apiKey"),
+  PRINCIPAL_ID_LIST("principalIdList"),
+  FS_RESOURCE_ID_LIST("fsResourceIdList"),
+  KEYSET_VALUES("keysetValues");
 
   private final String value;
 
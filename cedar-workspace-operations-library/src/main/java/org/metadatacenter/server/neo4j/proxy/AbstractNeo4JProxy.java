@@ -2,7 +2,6 @@ package org.metadatacenter.server.neo4j.proxy;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.metadatacenter.config.CedarConfig;
 import org.metadatacenter.id.CedarArtifactId;
 import org.metadatacenter.id.CedarResourceId;
@@ -24,6 +23,9 @@ import org.metadatacenter.server.logging.model.AppLogType;
 import org.metadatacenter.server.neo4j.CypherQuery;
 import org.metadatacenter.server.neo4j.CypherQueryLiteral;
 import org.metadatacenter.server.neo4j.CypherQueryWithParameters;
+import org.metadatacenter.server.neo4j.cypher.sort.CountedPage;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetCursor;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetPage;
 import org.metadatacenter.server.neo4j.log.CypherQueryLog;
 import org.metadatacenter.server.neo4j.util.Neo4JUtil;
 import org.metadatacenter.util.json.JsonMapper;
@@ -40,6 +42,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public abstract class AbstractNeo4JProxy {
 
@@ -50,10 +55,12 @@ public abstract class AbstractNeo4JProxy {
 
   protected static final Logger log = LoggerFactory.getLogger(AbstractNeo4JProxy.class);
 
+  private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
   protected AbstractNeo4JProxy(Neo4JProxies proxies, CedarConfig cedarConfig) {
     this.proxies = proxies;
     this.cedarConfig = cedarConfig;
-    driver = GraphDatabase.driver(proxies.config.getUri(), AuthTokens.basic(proxies.config.getUserName(), proxies.config.getUserPassword()));
+    this.driver = proxies.driver;
   }
 
   private void reportQueryError(ClientException ex, CypherQuery q) {
@@ -98,7 +105,47 @@ public abstract class AbstractNeo4JProxy {
     return result;
   }
 
+  /**
+   * Runs all the queries in a single write transaction, so either all of them are applied, or none of them.
+   */
+  protected boolean executeWriteBatch(List<CypherQueryWithParameters> queries, String eventDescription) {
+    boolean result = false;
+    List<CypherQueryLog> queryLogs = new ArrayList<>();
+    List<String> runnableQueries = new ArrayList<>();
+    List<Map<String, Object>> parameterMaps = new ArrayList<>();
+    for (CypherQueryWithParameters qp : queries) {
+      runnableQueries.add(qp.getRunnableQuery());
+      parameterMaps.add(qp.getParameterMap());
+      CypherQueryLog queryLog = prepareQueryLog("writeBatch", qp);
+      if (queryLog != null) {
+        queryLogs.add(queryLog);
+      }
+    }
+    try (Session session = driver.session()) {
+      result = session.writeTransaction(tx -> {
+        for (int i = 0; i < runnableQueries.size(); i++) {
+          tx.run(runnableQueries.get(i), parameterMaps.get(i));
+        }
+        return true;
+      });
+    } catch (ClientException ex) {
+      log.error("Error while " + eventDescription, ex);
+      for (int i = 0; i < queries.size() - 1; i++) {
+        log.error(queries.get(i).getRunnableQuery());
+      }
+      reportQueryError(ex, queries.get(queries.size() - 1));
+    } finally {
+      for (CypherQueryLog queryLog : queryLogs) {
+        commitQueryLog(queryLog);
+      }
+    }
+    return result;
+  }
+
   private CypherQueryLog prepareQueryLog(String operation, CypherQueryWithParameters qp) {
+    if (!AppLogger.shouldLogCypherQuery()) {
+      return null;
+    }
     CypherQueryLog log = new CypherQueryLog(operation,
         qp.getOriginalQuery(),
         qp.getRunnableQuery(),
@@ -109,6 +156,9 @@ public abstract class AbstractNeo4JProxy {
   }
 
   private CypherQueryLog prepareQueryLog(String operation, CypherQuery q) {
+    if (!AppLogger.shouldLogCypherQuery()) {
+      return null;
+    }
     CypherQueryLog log = new CypherQueryLog(operation,
         q.getOriginalQuery(),
         q.getRunnableQuery(),
@@ -121,13 +171,6 @@ public abstract class AbstractNeo4JProxy {
   private void commitQueryLog(CypherQueryLog log) {
     log.setEnd(Instant.now());
 
-    String paramMapString = null;
-    try {
-      paramMapString = JsonMapper.PRETTY_MAPPER.writeValueAsString(log.getParameterMap());
-    } catch (JsonProcessingException e) {
-      e.printStackTrace();
-    }
-
     LoggingContext loggingContext = ThreadLocalRequestIdHolder.getLoggingContext();
     String globalRequestId = null;
     String localRequestId = null;
@@ -142,27 +185,29 @@ public abstract class AbstractNeo4JProxy {
             .param(AppLogParam.RUNNABLE_QUERY, log.getRunnableQuery())
             .param(AppLogParam.INTERPOLATED_QUERY, log.getInterpolatedParamsQuery())
             .param(AppLogParam.QUERY_PARAMETERS, log.getParameterMap())
-            .param(AppLogParam.RUNNABLE_QUERY_HASH, DigestUtils.md5Hex(log.getRunnableQuery()))
-            .param(AppLogParam.QUERY_PARAMETERS_HASH, DigestUtils.md5Hex(paramMapString))
             .param(AppLogParam.OPERATION, log.getOperation());
     appLog.setStartTime(log.getStart());
     appLog.setEndTime(log.getEnd());
     appLog.setDuration(Duration.between(log.getStart(), log.getEnd()));
 
-    StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-    int count = 0;
-    for (int i = stackTrace.length - 1; i >= 0; i--) {
-      StackTraceElement ste = stackTrace[i];
-      if (count == 0 && (ste.getClassName().contains("Neo4JUser") || ste.getClassName().contains("Neo4JProxy"))) {
-        appLog.param(AppLogParam.CLASS_NAME, ste.getClassName());
-        appLog.param(AppLogParam.METHOD_NAME, ste.getMethodName());
-        appLog.param(AppLogParam.LINE_NUMBER, ste.getLineNumber());
-        count++;
-      }
-    }
+    // Report the outermost Neo4J proxy or session frame, the one that was called from outside of this package.
+    // The walk stops at the first frame outside of it, so only the top of the stack is materialized.
+    Optional<StackWalker.StackFrame> caller = STACK_WALKER.walk(frames -> frames
+        .dropWhile(f -> f.getDeclaringClass() == AbstractNeo4JProxy.class)
+        .takeWhile(f -> isNeo4JFrame(f.getClassName()))
+        .reduce((first, second) -> second));
+    caller.ifPresent(f -> {
+      appLog.param(AppLogParam.CLASS_NAME, f.getClassName());
+      appLog.param(AppLogParam.METHOD_NAME, f.getMethodName());
+      appLog.param(AppLogParam.LINE_NUMBER, f.getLineNumber());
+    });
     appLog.enqueue();
   }
 
+  private static boolean isNeo4JFrame(String className) {
+    return className.contains("Neo4JUser") || className.contains("Neo4JProxy");
+  }
+
   protected <T extends CedarResource> T executeWriteGetOne(CypherQuery q, Class<T> type) {
     org.neo4j.driver.Record record = null;
     CypherQueryLog queryLog = null;
@@ -199,8 +244,7 @@ public abstract class AbstractNeo4JProxy {
     if (record != null) {
       Node n = record.get(0).asNode();
       if (n != null) {
-        JsonNode node = JsonMapper.MAPPER.valueToTree(n.asMap());
-        return buildClass(node, type);
+        return buildClass(n.asMap(), type);
       }
     }
     return null;
@@ -291,160 +335,218 @@ public abstract class AbstractNeo4JProxy {
     return null;
   }
 
-  private List<org.neo4j.driver.Record> executeQueryGetRecordList(Session session, CypherQuery q) {
-    List<org.neo4j.driver.Record> records = null;
+  private <R> List<R> executeQueryGetMappedList(Session session, CypherQuery q,
+                                                BiConsumer<org.neo4j.driver.Record, List<R>> recordMapper) {
+    List<R> mapped = null;
     CypherQueryLog queryLog = null;
     if (q instanceof CypherQueryWithParameters) {
       CypherQueryWithParameters qp = (CypherQueryWithParameters) q;
       final String runnableQuery = qp.getRunnableQuery();
       final Map<String, Object> parameterMap = qp.getParameterMap();
       queryLog = prepareQueryLog("getRecordList", qp);
-      records = session.readTransaction(tx -> {
+      mapped = session.readTransaction(tx -> {
         Result result = tx.run(runnableQuery, parameterMap);
-        List<org.neo4j.driver.Record> nodes = new ArrayList<>();
+        List<R> items = new ArrayList<>();
         while (result.hasNext()) {
-          nodes.add(result.next());
+          recordMapper.accept(result.next(), items);
         }
-        return nodes;
+        return items;
       });
     } else if (q instanceof CypherQueryLiteral) {
       final String runnableQuery = q.getRunnableQuery();
       queryLog = prepareQueryLog("getRecordList", q);
-      records = session.readTransaction(tx -> {
+      mapped = session.readTransaction(tx -> {
         Result result = tx.run(runnableQuery);
-        List<org.neo4j.driver.Record> nodes = new ArrayList<>();
+        List<R> items = new ArrayList<>();
         while (result.hasNext()) {
-          nodes.add(result.next());
+          recordMapper.accept(result.next(), items);
         }
-        return nodes;
+        return items;
       });
     }
     if (queryLog != null) {
       commitQueryLog(queryLog);
     }
-    return records;
+    return mapped;
   }
 
-
   protected <T extends CedarResource> List<T> executeReadGetList(CypherQuery q, Class<T> type) {
-    List<T> folderServerNodeList = new ArrayList<>();
     try (Session session = driver.session()) {
-      List<org.neo4j.driver.Record> records = executeQueryGetRecordList(session, q);
-      if (records != null) {
-        for (org.neo4j.driver.Record r : records) {
-          if (r.size() == 1) {
-            Value value = r.get(0);
-            if (value.type().equals(driver.defaultTypeSystem().NODE())) {
-              Node n = value.asNode();
-              if (n != null) {
-                JsonNode node = JsonMapper.MAPPER.valueToTree(n.asMap());
-                T folderServerNode = buildClass(node, type);
-                folderServerNodeList.add(folderServerNode);
-              }
-            } else if (value.type().equals(driver.defaultTypeSystem().PATH())) {
-              Path segments = value.asPath();
-              for (Node n : segments.nodes()) {
-                JsonNode node = JsonMapper.MAPPER.valueToTree(n.asMap());
-                T folderServerNode = buildClass(node, type);
-                folderServerNodeList.add(folderServerNode);
-              }
-            } else if (value.type().equals(driver.defaultTypeSystem().LIST())) {
-              List<Object> list = value.asList();
-              for (Object o : list) {
-                if (o instanceof Node) {
-                  Node n = (Node) o;
-                  JsonNode node = JsonMapper.MAPPER.valueToTree(n.asMap());
-                  T folderServerNode = buildClass(node, type);
-                  folderServerNodeList.add(folderServerNode);
-                }
-              }
-            }
-          } else {
-            for (Value value : r.values()) {
-              if (value.type().equals(driver.defaultTypeSystem().NODE())) {
-                Node n = value.asNode();
-                if (n != null) {
-                  JsonNode node = JsonMapper.MAPPER.valueToTree(n.asMap());
-                  T folderServerNode = buildClass(node, type);
-                  folderServerNodeList.add(folderServerNode);
-                }
-              }
-            }
+      List<T> folderServerNodeList = executeQueryGetMappedList(session, q,
+          (r, nodes) -> mapRecordNodes(r, type, nodes::add));
+      if (folderServerNodeList != null) {
+        return folderServerNodeList;
+      }
+    } catch (ClientException ex) {
+      reportQueryError(ex, q);
+    }
+
+    return new ArrayList<>();
+  }
+
+  /**
+   * Reads a single record holding the total count and the list of nodes of the requested page.
+   */
+  protected <T extends CedarResource> CountedPage<T> executeReadGetCountedPage(CypherQuery q, Class<T> type, long offset) {
+    try (Session session = driver.session()) {
+      long[] total = {0};
+      List<T> folderServerNodeList = executeQueryGetMappedList(session, q, (r, nodes) -> {
+        total[0] = r.get(0).asLong();
+        for (Object o : r.get(1).asList()) {
+          if (o instanceof Node) {
+            nodes.add(buildClass(((Node) o).asMap(), type));
           }
         }
-        return folderServerNodeList;
+      });
+      if (folderServerNodeList != null) {
+        boolean hasNext = offset + folderServerNodeList.size() < total[0];
+        return new CountedPage<>(folderServerNodeList, total[0], hasNext);
+      }
+    } catch (ClientException ex) {
+      reportQueryError(ex, q);
+    }
+
+    return new CountedPage<>(new ArrayList<>(), 0, false);
+  }
+
+  /**
+   * Reads one page of a keyset query. The query must return the node and its sort key list, with the id as the last
+   * element of the list. A next cursor is only produced when the page is full.
+   */
+  protected <T extends CedarResource> KeysetPage<T> executeReadGetKeysetPage(CypherQuery q, Class<T> type, String sort,
+                                                                             long limit) {
+    List<Object> lastSortKey = new ArrayList<>();
+    try (Session session = driver.session()) {
+      List<T> folderServerNodeList = executeQueryGetMappedList(session, q, (r, nodes) -> {
+        Value nodeValue = r.get(0);
+        if (nodeValue.type().equals(driver.defaultTypeSystem().NODE())) {
+          nodes.add(buildClass(nodeValue.asNode().asMap(), type));
+          lastSortKey.clear();
+          lastSortKey.addAll(r.get(1).asList());
+        }
+      });
+      if (folderServerNodeList != null) {
+        String nextCursor = null;
+        if (folderServerNodeList.size() == limit && !lastSortKey.isEmpty()) {
+          int idIndex = lastSortKey.size() - 1;
+          nextCursor = new KeysetCursor(sort, new ArrayList<>(lastSortKey.subList(0, idIndex)),
+              String.valueOf(lastSortKey.get(idIndex))).encode();
+        }
+        return new KeysetPage<>(folderServerNodeList, nextCursor);
       }
     } catch (ClientException ex) {
       reportQueryError(ex, q);
     }
 
-    return folderServerNodeList;
+    return new KeysetPage<>(new ArrayList<>(), null);
+  }
+
+  private <T extends CedarResource> void mapRecordNodes(org.neo4j.driver.Record r, Class<T> type, Consumer<T> consumer) {
+    if (r.size() == 1) {
+      Value value = r.get(0);
+      if (value.type().equals(driver.defaultTypeSystem().NODE())) {
+        Node n = value.asNode();
+        if (n != null) {
+          consumer.accept(buildClass(n.asMap(), type));
+        }
+      } else if (value.type().equals(driver.defaultTypeSystem().PATH())) {
+        Path segments = value.asPath();
+        for (Node n : segments.nodes()) {
+          consumer.accept(buildClass(n.asMap(), type));
+        }
+      } else if (value.type().equals(driver.defaultTypeSystem().LIST())) {
+        List<Object> list = value.asList();
+        for (Object o : list) {
+          if (o instanceof Node) {
+            Node n = (Node) o;
+            consumer.accept(buildClass(n.asMap(), type));
+          }
+        }
+      }
+    } else {
+      for (Value value : r.values()) {
+        if (value.type().equals(driver.defaultTypeSystem().NODE())) {
+          Node n = value.asNode();
+          if (n != null) {
+            consumer.accept(buildClass(n.asMap(), type));
+          }
+        }
+      }
+    }
   }
 
   protected <T extends CedarResourceId> List<T> executeReadGetIdList(CypherQuery q, Class<T> type) {
-    List<T> folderServerIdList = new ArrayList<>();
     try (Session session = driver.session()) {
-      List<org.neo4j.driver.Record> records = executeQueryGetRecordList(session, q);
-      if (records != null) {
-        for (org.neo4j.driver.Record r : records) {
-          if (r.size() == 1) {
-            Value value = r.get(0);
-            if (value.type().equals(driver.defaultTypeSystem().STRING())) {
-              String sv = value.asString();
-              T folderServerId = buildIdClass(sv, type);
-              folderServerIdList.add(folderServerId);
-            }
+      List<T> folderServerIdList = executeQueryGetMappedList(session, q, (r, ids) -> {
+        if (r.size() == 1) {
+          Value value = r.get(0);
+          if (value.type().equals(driver.defaultTypeSystem().STRING())) {
+            String sv = value.asString();
+            T folderServerId = buildIdClass(sv, type);
+            ids.add(folderServerId);
           }
         }
+      });
+      if (folderServerIdList != null) {
         return folderServerIdList;
       }
     } catch (ClientException ex) {
       reportQueryError(ex, q);
     }
 
-    return folderServerIdList;
+    return new ArrayList<>();
   }
 
-  protected <T extends ResultTuple> List<T> executeReadGetToupleList(CypherQuery q, Class<T> type) {
-    List<T> tupleList = new ArrayList<>();
+  protected List<String> executeReadGetStringList(CypherQuery q) {
     try (Session session = driver.session()) {
-      List<org.neo4j.driver.Record> records = executeQueryGetRecordList(session, q);
-      if (records != null) {
-        for (org.neo4j.driver.Record r : records) {
-          Map m = r.asMap();
-          JsonNode node = JsonMapper.MAPPER.valueToTree(m);
-          T tuple = buildToupleClass(node, type);
-          tupleList.add(tuple);
+      List<String> stringList = executeQueryGetMappedList(session, q, (r, strings) -> {
+        if (r.size() == 1) {
+          Value value = r.get(0);
+          if (value.type().equals(driver.defaultTypeSystem().STRING())) {
+            strings.add(value.asString());
+          }
         }
+      });
+      if (stringList != null) {
+        return stringList;
+      }
+    } catch (ClientException ex) {
+      reportQueryError(ex, q);
+    }
+
+    return new ArrayList<>();
+  }
+
+  protected <T extends ResultTuple> List<T> executeReadGetToupleList(CypherQuery q, Class<T> type) {
+    try (Session session = driver.session()) {
+      List<T> tupleList = executeQueryGetMappedList(session, q,
+          (r, tuples) -> tuples.add(buildToupleClass(r.asMap(), type)));
+      if (tupleList != null) {
         return tupleList;
       }
     } catch (ClientException ex) {
       reportQueryError(ex, q);
     }
 
-    return tupleList;
+    return new ArrayList<>();
   }
 
   protected List<FolderServerArc> executeReadGetArcList(CypherQuery q) {
-    List<FolderServerArc> folderServerArcList = new ArrayList<>();
     try (Session session = driver.session()) {
-      List<org.neo4j.driver.Record> records = executeQueryGetRecordList(session, q);
-      if (records != null) {
-        for (org.neo4j.driver.Record r : records) {
-          Map<String, Object> recordMap = r.asMap();
-          if (recordMap != null) {
-            JsonNode node = JsonMapper.MAPPER.valueToTree(recordMap);
-            FolderServerArc rel = buildArc(node);
-            folderServerArcList.add(rel);
-          }
+      List<FolderServerArc> folderServerArcList = executeQueryGetMappedList(session, q, (r, arcs) -> {
+        Map<String, Object> recordMap = r.asMap();
+        if (recordMap != null) {
+          arcs.add(buildArc(recordMap));
         }
+      });
+      if (folderServerArcList != null) {
         return folderServerArcList;
       }
     } catch (ClientException ex) {
       reportQueryError(ex, q);
     }
 
-    return folderServerArcList;
+    return new ArrayList<>();
   }
 
   protected List<Map<String, Object>> executeReadGetMapList(CypherQuery q, List<String> fieldNameList) {
@@ -457,48 +559,43 @@ public abstract class AbstractNeo4JProxy {
     fieldNameMap.put(Neo4JUtil.escapePropertyName("@id"), "@id");
     fieldNameMap.put(Neo4JUtil.escapePropertyName("resourceType"), "resourceType");
 
-    List<Map<String, Object>> folderServerNodeList = new ArrayList<>();
     try (Session session = driver.session()) {
-      List<org.neo4j.driver.Record> records = executeQueryGetRecordList(session, q);
-      if (records != null) {
-        for (org.neo4j.driver.Record r : records) {
-          if (r.size() == 1) {
-            Value value = r.get(0);
+      List<Map<String, Object>> folderServerNodeList = executeQueryGetMappedList(session, q, (r, maps) -> {
+        if (r.size() == 1) {
+          Value value = r.get(0);
+          if (value.type().equals(driver.defaultTypeSystem().NODE())) {
+            Node n = value.asNode();
+            if (n != null) {
+              maps.add(convertToMap(n, fieldNameMap));
+            }
+          }
+        } else {
+          for (Value value : r.values()) {
             if (value.type().equals(driver.defaultTypeSystem().NODE())) {
               Node n = value.asNode();
               if (n != null) {
-                Map<String, Object> m = convertToMap(n, fieldNameMap);
-                folderServerNodeList.add(m);
-              }
-            }
-          } else {
-            for (Value value : r.values()) {
-              if (value.type().equals(driver.defaultTypeSystem().NODE())) {
-                Node n = value.asNode();
-                if (n != null) {
-                  Map<String, Object> m = convertToMap(n, fieldNameMap);
-                  folderServerNodeList.add(m);
-                }
+                maps.add(convertToMap(n, fieldNameMap));
               }
             }
           }
         }
+      });
+      if (folderServerNodeList != null) {
         return folderServerNodeList;
       }
     } catch (ClientException ex) {
       reportQueryError(ex, q);
     }
 
-    return folderServerNodeList;
+    return new ArrayList<>();
   }
 
   private Map<String, Object> convertToMap(Node n, Map<String, String> fieldNameMap) {
-    Map<String, Object> m = n.asMap();
     Map<String, Object> filtered = new HashMap<>();
-    for (String escapedName : fieldNameMap.keySet()) {
-      String regularName = fieldNameMap.get(escapedName);
-      if (m.containsKey(escapedName)) {
-        filtered.put(regularName, m.get(escapedName));
+    for (Map.Entry<String, String> field : fieldNameMap.entrySet()) {
+      Value v = n.get(field.getKey());
+      if (!v.isNull()) {
+        filtered.put(field.getValue(), v.asObject());
       }
     }
     return filtered;
@@ -517,18 +614,33 @@ public abstract class AbstractNeo4JProxy {
     return cn;
   }
 
+  /**
+   * Maps the node properties, as returned by the driver, directly into the target class. This avoids building an
+   * intermediate JsonNode tree for every node.
+   */
+  private <T extends CedarResource> T buildClass(Map<String, Object> properties, Class<T> type) {
+    T cn = null;
+    if (properties != null) {
+      try {
+        cn = JsonMapper.MAPPER.convertValue(Neo4JUtil.unescapeTopLevelPropertyNames(properties), type);
+      } catch (IllegalArgumentException e) {
+        log.error("Error deserializing resource into " + type.getSimpleName(), e);
+      }
+    }
+    return cn;
+  }
+
   private <T extends CedarResourceId> T buildIdClass(String idValue, Class<T> type) {
     T cn = (T) CedarResourceId.build(idValue, CedarResourceType.forResourceIdClass(type));
     return cn;
   }
 
-  private <T extends ResultTuple> T buildToupleClass(JsonNode node, Class<T> type) {
+  private <T extends ResultTuple> T buildToupleClass(Map<String, Object> values, Class<T> type) {
     T cn = null;
-    if (node != null && !node.isMissingNode()) {
+    if (values != null) {
       try {
-        JsonNode unescaped = Neo4JUtil.unescapeTopLevelPropertyNames(node);
-        cn = JsonMapper.MAPPER.treeToValue(unescaped, type);
-      } catch (JsonProcessingException e) {
+        cn = JsonMapper.MAPPER.convertValue(Neo4JUtil.unescapeTopLevelPropertyNames(values), type);
+      } catch (IllegalArgumentException e) {
         log.error("Error deserializing touple into " + type.getSimpleName(), e);
       }
     }
@@ -547,10 +659,10 @@ public abstract class AbstractNeo4JProxy {
     return buildClass(n, FileSystemResource.class);
   }
 
-  protected FolderServerArc buildArc(JsonNode a) {
+  protected FolderServerArc buildArc(Map<String, Object> a) {
     FolderServerArc arc = null;
-    if (a != null && !a.isMissingNode()) {
-      arc = new FolderServerArc(a.at("/sid").textValue(), RelationLabel.forValue(a.at("/type").textValue()), a.at("/tid").textValue());
+    if (a != null) {
+      arc = new FolderServerArc((String) a.get("sid"), RelationLabel.forValue((String) a.get("type")), (String) a.get("tid"));
     }
     return arc;
   }
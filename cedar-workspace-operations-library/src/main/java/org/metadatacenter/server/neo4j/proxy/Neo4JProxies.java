@@ -4,13 +4,24 @@ import org.metadatacenter.config.CedarConfig;
 import org.metadatacenter.server.jsonld.LinkedDataUtil;
 import org.metadatacenter.server.neo4j.Neo4jConfig;
 import org.metadatacenter.server.neo4j.PathUtil;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Config;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
 
 public class Neo4JProxies {
 
+  private static final Logger log = LoggerFactory.getLogger(Neo4JProxies.class);
+
   protected final CedarConfig cedarConfig;
   protected final Neo4jConfig config;
   protected final PathUtil pathUtil;
   protected final LinkedDataUtil linkedDataUtil;
+  protected final Driver driver;
 
   private final Neo4JProxyAdmin adminProxy;
   private final Neo4JProxyFolder folderProxy;
@@ -30,6 +41,7 @@ public class Neo4JProxies {
     this.config = Neo4jConfig.fromCedarConfig(cedarConfig);
     this.linkedDataUtil = cedarConfig.getLinkedDataUtil();
     this.pathUtil = new Neo4JPathUtil(cedarConfig);
+    this.driver = buildDriver(config);
 
     this.adminProxy = new Neo4JProxyAdmin(this, cedarConfig);
     this.folderProxy = new Neo4JProxyFolder(this, cedarConfig);
@@ -45,6 +57,27 @@ public class Neo4JProxies {
     this.categoryPermissionProxy = new Neo4JProxyCategoryPermission(this, cedarConfig);
   }
 
+  private static Driver buildDriver(Neo4jConfig config) {
+    Config driverConfig = Config.builder()
+        .withMaxConnectionPoolSize(config.getMaxConnectionPoolSize())
+        .withConnectionAcquisitionTimeout(config.getConnectionAcquisitionTimeoutSeconds(), TimeUnit.SECONDS)
+        .withMaxConnectionLifetime(config.getMaxConnectionLifetimeSeconds(), TimeUnit.SECONDS)
+        .build();
+    log.info("Creating Neo4j driver, maxConnectionPoolSize:" + config.getMaxConnectionPoolSize() +
+        ", connectionAcquisitionTimeout:" + config.getConnectionAcquisitionTimeoutSeconds() + "s" +
+        ", maxConnectionLifetime:" + config.getMaxConnectionLifetimeSeconds() + "s");
+    return GraphDatabase.driver(config.getUri(), AuthTokens.basic(config.getUserName(), config.getUserPassword()),
+        driverConfig);
+  }
+
+  public Driver getDriver() {
+    return driver;
+  }
+
+  public void close() {
+    driver.close();
+  }
+
   public Neo4JProxyAdmin admin() {
     return adminProxy;
   }
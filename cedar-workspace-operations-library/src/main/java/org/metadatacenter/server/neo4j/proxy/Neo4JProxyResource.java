@@ -12,12 +12,16 @@ import org.metadatacenter.server.neo4j.cypher.parameter.*;
 import org.metadatacenter.server.neo4j.cypher.query.CypherQueryBuilderFilesystemResource;
 import org.metadatacenter.server.neo4j.cypher.query.CypherQueryBuilderFolderContent;
 import org.metadatacenter.server.neo4j.cypher.query.CypherQueryBuilderResource;
+import org.metadatacenter.server.neo4j.cypher.sort.CountedPage;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetCursor;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetPage;
 import org.metadatacenter.server.neo4j.parameter.CypherParameters;
 import org.metadatacenter.server.security.model.auth.NodeSharePermission;
 import org.metadatacenter.server.security.model.user.CedarUser;
 import org.metadatacenter.server.security.model.user.ResourcePublicationStatusFilter;
 import org.metadatacenter.server.security.model.user.ResourceVersionFilter;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +56,14 @@ public class Neo4JProxyResource extends AbstractNeo4JProxy {
     return executeReadGetList(q, FolderServerResourceExtract.class);
   }
 
+  KeysetPage<FolderServerResourceExtract> findAllNodesAfter(long limit, KeysetCursor cursor, List<String> sortList) {
+    String sort = getKeysetSort(cursor, sortList);
+    String cypher = CypherQueryBuilderFilesystemResource.getAllResourcesKeysetLookupQuery(sortList, cursor != null);
+    CypherParameters params = CypherParamBuilderFilesystemResource.getAllResourcesKeysetLookupParameters(limit, cursor);
+    CypherQuery q = new CypherQueryWithParameters(cypher, params);
+    return executeReadGetKeysetPage(q, FolderServerResourceExtract.class, sort, limit);
+  }
+
   private <T extends CedarResource> List<T> findFolderContentsFilteredGeneric(CedarFolderId folderId, Collection<CedarResourceType> resourceTypes,
                                                                               ResourceVersionFilter version,
                                                                               ResourcePublicationStatusFilter publicationStatus, int limit,
@@ -80,6 +92,60 @@ public class Neo4JProxyResource extends AbstractNeo4JProxy {
     return executeReadGetList(q, FolderServerResourceExtract.class);
   }
 
+  CountedPage<FolderServerResourceExtract> findFolderContentsExtractWithTotal(CedarFolderId folderId,
+                                                                             Collection<CedarResourceType> resourceTypes,
+                                                                             ResourceVersionFilter version,
+                                                                             ResourcePublicationStatusFilter publicationStatus,
+                                                                             long limit, long offset, List<String> sortList) {
+    String cypher = CypherQueryBuilderFolderContent.getFolderContentsFilteredLookupWithCountQuery(sortList, version, publicationStatus);
+    CypherParameters params = CypherParamBuilderFolderContent.getFolderContentsFilteredLookupParameters(folderId, resourceTypes, publicationStatus,
+        limit, offset);
+    CypherQuery q = new CypherQueryWithParameters(cypher, params);
+    return executeReadGetCountedPage(q, FolderServerResourceExtract.class, offset);
+  }
+
+  /**
+   * Reads one extra row instead of counting, which is enough to tell whether there is a next page.
+   */
+  CountedPage<FolderServerResourceExtract> findFolderContentsExtractWithoutTotal(CedarFolderId folderId,
+                                                                                Collection<CedarResourceType> resourceTypes,
+                                                                                ResourceVersionFilter version,
+                                                                                ResourcePublicationStatusFilter publicationStatus,
+                                                                                long limit, long offset, List<String> sortList) {
+    String cypher = CypherQueryBuilderFolderContent.getFolderContentsFilteredLookupQuery(sortList, version, publicationStatus);
+    CypherParameters params = CypherParamBuilderFolderContent.getFolderContentsFilteredLookupParameters(folderId, resourceTypes, publicationStatus,
+        limit + 1, offset);
+    CypherQuery q = new CypherQueryWithParameters(cypher, params);
+    List<FolderServerResourceExtract> resources = executeReadGetList(q, FolderServerResourceExtract.class);
+    boolean hasNext = resources.size() > limit;
+    if (hasNext) {
+      resources = new ArrayList<>(resources.subList(0, (int) limit));
+    }
+    return new CountedPage<>(resources, CountedPage.UNKNOWN_TOTAL, hasNext);
+  }
+
+  KeysetPage<FolderServerResourceExtract> findFolderContentsExtractAfter(CedarFolderId folderId,
+                                                                         Collection<CedarResourceType> resourceTypes,
+                                                                         ResourceVersionFilter version,
+                                                                         ResourcePublicationStatusFilter publicationStatus,
+                                                                         long limit, KeysetCursor cursor, List<String> sortList) {
+    String sort = getKeysetSort(cursor, sortList);
+    String cypher = CypherQueryBuilderFolderContent.getFolderContentsKeysetLookupQuery(sortList, version, publicationStatus,
+        cursor != null);
+    CypherParameters params = CypherParamBuilderFolderContent.getFolderContentsKeysetLookupParameters(folderId, resourceTypes,
+        publicationStatus, limit, cursor);
+    CypherQuery q = new CypherQueryWithParameters(cypher, params);
+    return executeReadGetKeysetPage(q, FolderServerResourceExtract.class, sort, limit);
+  }
+
+  private static String getKeysetSort(KeysetCursor cursor, List<String> sortList) {
+    String sort = String.join(",", sortList);
+    if (cursor != null && !sort.equals(cursor.getSort())) {
+      throw new IllegalArgumentException("The cursor was issued for sort '" + cursor.getSort() + "', not '" + sort + "'");
+    }
+    return sort;
+  }
+
   List<Map<String, Object>> findFolderContentsExtractMap(CedarFolderId folderId, Collection<CedarResourceType> resourceTypes,
                                                          ResourceVersionFilter version, ResourcePublicationStatusFilter publicationStatus,
                                                          long limit, long offset, List<String> sortList, CedarUserId ownerId,
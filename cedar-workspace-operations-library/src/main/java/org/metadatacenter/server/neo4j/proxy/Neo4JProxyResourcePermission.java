@@ -3,6 +3,7 @@ package org.metadatacenter.server.neo4j.proxy;
 import org.metadatacenter.config.CedarConfig;
 import org.metadatacenter.id.CedarFilesystemResourceId;
 import org.metadatacenter.id.CedarGroupId;
+import org.metadatacenter.id.CedarResourceId;
 import org.metadatacenter.id.CedarUserId;
 import org.metadatacenter.model.RelationLabel;
 import org.metadatacenter.model.folderserver.ResourceIdEverybodyPermissionTuple;
@@ -13,14 +14,21 @@ import org.metadatacenter.server.neo4j.CypherQuery;
 import org.metadatacenter.server.neo4j.CypherQueryWithParameters;
 import org.metadatacenter.server.neo4j.cypher.parameter.CypherParamBuilderFilesystemResource;
 import org.metadatacenter.server.neo4j.cypher.query.CypherQueryBuilderFilesystemResourcePermission;
+import org.metadatacenter.server.neo4j.cypher.query.CypherQueryBuilderPermissionClosure;
 import org.metadatacenter.server.neo4j.parameter.CypherParameters;
 import org.metadatacenter.server.security.model.auth.NodeSharePermission;
 import org.metadatacenter.server.security.model.permission.resource.FilesystemResourcePermission;
+import org.metadatacenter.server.security.model.permission.resource.ResourcePermissionGroupPermissionPair;
+import org.metadatacenter.server.security.model.permission.resource.ResourcePermissionUserPermissionPair;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class Neo4JProxyResourcePermission extends AbstractNeo4JProxy {
 
+  private static final int PERMISSION_CLOSURE_REBUILD_BATCH_SIZE = 1000;
+
   Neo4JProxyResourcePermission(Neo4JProxies proxies, CedarConfig cedarConfig) {
     super(proxies, cedarConfig);
   }
@@ -93,16 +101,86 @@ public class Neo4JProxyResourcePermission extends AbstractNeo4JProxy {
     }
   }
 
+  boolean updatePermissions(CedarFilesystemResourceId resourceId,
+                            Collection<ResourcePermissionUserPermissionPair> userPermissionsToRemove,
+                            Collection<ResourcePermissionUserPermissionPair> userPermissionsToAdd,
+                            Collection<ResourcePermissionGroupPermissionPair> groupPermissionsToRemove,
+                            Collection<ResourcePermissionGroupPermissionPair> groupPermissionsToAdd) {
+    List<CypherQueryWithParameters> queries = new ArrayList<>();
+    for (FilesystemResourcePermission permission : FilesystemResourcePermission.values()) {
+      List<String> userIds = getUserIds(userPermissionsToRemove, permission);
+      if (!userIds.isEmpty()) {
+        String cypher = CypherQueryBuilderFilesystemResourcePermission.removePermissionsForFilesystemResourceFromUsers(permission);
+        CypherParameters params = CypherParamBuilderFilesystemResource.matchFilesystemResourceAndPrincipals(resourceId, userIds);
+        queries.add(new CypherQueryWithParameters(cypher, params));
+      }
+      List<String> groupIds = getGroupIds(groupPermissionsToRemove, permission);
+      if (!groupIds.isEmpty()) {
+        String cypher = CypherQueryBuilderFilesystemResourcePermission.removePermissionsForFilesystemResourceFromGroups(permission);
+        CypherParameters params = CypherParamBuilderFilesystemResource.matchFilesystemResourceAndPrincipals(resourceId, groupIds);
+        queries.add(new CypherQueryWithParameters(cypher, params));
+      }
+    }
+    for (FilesystemResourcePermission permission : FilesystemResourcePermission.values()) {
+      List<String> userIds = getUserIds(userPermissionsToAdd, permission);
+      if (!userIds.isEmpty()) {
+        String cypher = CypherQueryBuilderFilesystemResourcePermission.addPermissionsToFilesystemResourceForUsers(permission);
+        CypherParameters params = CypherParamBuilderFilesystemResource.matchFilesystemResourceAndPrincipals(resourceId, userIds);
+        queries.add(new CypherQueryWithParameters(cypher, params));
+      }
+      List<String> groupIds = getGroupIds(groupPermissionsToAdd, permission);
+      if (!groupIds.isEmpty()) {
+        String cypher = CypherQueryBuilderFilesystemResourcePermission.addPermissionsToFilesystemResourceForGroups(permission);
+        CypherParameters params = CypherParamBuilderFilesystemResource.matchFilesystemResourceAndPrincipals(resourceId, groupIds);
+        queries.add(new CypherQueryWithParameters(cypher, params));
+      }
+    }
+    if (queries.isEmpty()) {
+      return true;
+    }
+    return executeWriteBatch(queries, "updating permissions");
+  }
+
+  private static List<String> getUserIds(Collection<ResourcePermissionUserPermissionPair> pairs, FilesystemResourcePermission permission) {
+    List<String> ids = new ArrayList<>();
+    for (ResourcePermissionUserPermissionPair pair : pairs) {
+      if (pair.getPermission() == permission) {
+        ids.add(pair.getUser().getResourceIds().getId());
+      }
+    }
+    return ids;
+  }
+
+  private static List<String> getGroupIds(Collection<ResourcePermissionGroupPermissionPair> pairs, FilesystemResourcePermission permission) {
+    List<String> ids = new ArrayList<>();
+    for (ResourcePermissionGroupPermissionPair pair : pairs) {
+      if (pair.getPermission() == permission) {
+        ids.add(pair.getGroup().getResourceId().getId());
+      }
+    }
+    return ids;
+  }
+
   boolean userHasReadAccessToFilesystemResource(CedarUserId userId, CedarFilesystemResourceId resourceId) {
-    String cypher = CypherQueryBuilderFilesystemResourcePermission.userCanReadFilesystemResource();
+    String cypher = isPermissionClosureEnabled() ? CypherQueryBuilderPermissionClosure.userCanReadFilesystemResource() :
+        CypherQueryBuilderFilesystemResourcePermission.userCanReadFilesystemResource();
     CypherParameters params = CypherParamBuilderFilesystemResource.matchFilesystemResourceAndUser(resourceId, userId);
     CypherQuery q = new CypherQueryWithParameters(cypher, params);
     FolderServerUser cedarFSUser = executeReadGetOne(q, FolderServerUser.class);
     return cedarFSUser != null;
   }
 
+  List<String> getReadableFilesystemResourceIds(CedarUserId userId, List<String> resourceIds) {
+    String cypher = isPermissionClosureEnabled() ? CypherQueryBuilderPermissionClosure.getReadableFilesystemResourceIds() :
+        CypherQueryBuilderFilesystemResourcePermission.getReadableFilesystemResourceIds();
+    CypherParameters params = CypherParamBuilderFilesystemResource.matchFilesystemResourcesAndUser(resourceIds, userId);
+    CypherQuery q = new CypherQueryWithParameters(cypher, params);
+    return executeReadGetStringList(q);
+  }
+
   boolean userHasWriteAccessToFilesystemResource(CedarUserId userId, CedarFilesystemResourceId resourceId) {
-    String cypher = CypherQueryBuilderFilesystemResourcePermission.userCanWriteFilesystemResource();
+    String cypher = isPermissionClosureEnabled() ? CypherQueryBuilderPermissionClosure.userCanWriteFilesystemResource() :
+        CypherQueryBuilderFilesystemResourcePermission.userCanWriteFilesystemResource();
     CypherParameters params = CypherParamBuilderFilesystemResource.matchFilesystemResourceAndUser(resourceId, userId);
     CypherQuery q = new CypherQueryWithParameters(cypher, params);
     FolderServerUser cedarFSUser = executeReadGetOne(q, FolderServerUser.class);
@@ -143,12 +221,15 @@ public class Neo4JProxyResourcePermission extends AbstractNeo4JProxy {
 
   List<CedarUserId> getUserIdsWithTransitivePermissionOnResource(CedarFilesystemResourceId resourceId, FilesystemResourcePermission permission) {
     String cypher = null;
+    boolean closure = isPermissionClosureEnabled();
     switch (permission) {
       case READ:
-        cypher = CypherQueryBuilderFilesystemResourcePermission.getUserIdsWithTransitiveReadOnFilesystemResource();
+        cypher = closure ? CypherQueryBuilderPermissionClosure.getUserIdsWithEffectiveReadOnFilesystemResource() :
+            CypherQueryBuilderFilesystemResourcePermission.getUserIdsWithTransitiveReadOnFilesystemResource();
         break;
       case WRITE:
-        cypher = CypherQueryBuilderFilesystemResourcePermission.getUserIdsWithTransitiveWriteOnFilesystemResource();
+        cypher = closure ? CypherQueryBuilderPermissionClosure.getUserIdsWithEffectiveWriteOnFilesystemResource() :
+            CypherQueryBuilderFilesystemResourcePermission.getUserIdsWithTransitiveWriteOnFilesystemResource();
         break;
     }
 
@@ -159,12 +240,15 @@ public class Neo4JProxyResourcePermission extends AbstractNeo4JProxy {
 
   List<CedarGroupId> getGroupIdsWithTransitivePermissionOnResource(CedarFilesystemResourceId resourceId, FilesystemResourcePermission permission) {
     String cypher = null;
+    boolean closure = isPermissionClosureEnabled();
     switch (permission) {
       case READ:
-        cypher = CypherQueryBuilderFilesystemResourcePermission.getGroupIdsWithTransitiveReadOnFilesystemResource();
+        cypher = closure ? CypherQueryBuilderPermissionClosure.getGroupIdsWithEffectiveReadOnFilesystemResource() :
+            CypherQueryBuilderFilesystemResourcePermission.getGroupIdsWithTransitiveReadOnFilesystemResource();
         break;
       case WRITE:
-        cypher = CypherQueryBuilderFilesystemResourcePermission.getGroupIdsWithTransitiveWriteOnFilesystemResource();
+        cypher = closure ? CypherQueryBuilderPermissionClosure.getGroupIdsWithEffectiveWriteOnFilesystemResource() :
+            CypherQueryBuilderFilesystemResourcePermission.getGroupIdsWithTransitiveWriteOnFilesystemResource();
         break;
     }
 
@@ -174,7 +258,8 @@ public class Neo4JProxyResourcePermission extends AbstractNeo4JProxy {
   }
 
   public NodeSharePermission getTransitiveEverybodyPermission(CedarFilesystemResourceId resourceId) {
-    String cypher = CypherQueryBuilderFilesystemResourcePermission.getTransitiveEverybodyPermission();
+    String cypher = isPermissionClosureEnabled() ? CypherQueryBuilderPermissionClosure.getEffectiveEverybodyPermission() :
+        CypherQueryBuilderFilesystemResourcePermission.getTransitiveEverybodyPermission();
     CypherParameters params = CypherParamBuilderFilesystemResource.matchId(resourceId);
     CypherQuery q = new CypherQueryWithParameters(cypher, params);
     List<ResourceIdEverybodyPermissionTuple> nodesWithEverybodyPermission = executeReadGetToupleList(q, ResourceIdEverybodyPermissionTuple.class);
@@ -188,4 +273,62 @@ public class Neo4JProxyResourcePermission extends AbstractNeo4JProxy {
     }
     return perm;
   }
+
+  private boolean isPermissionClosureEnabled() {
+    return proxies.config.isPermissionClosureEnabled();
+  }
+
+  /**
+   * Recomputes the materialized permissions of the resource and everything below it. Call it after the permissions,
+   * the owner, the everybody permission or the location of the resource changed. No-op if the closure is disabled.
+   */
+  boolean refreshPermissionClosure(CedarResourceId resourceId) {
+    if (!isPermissionClosureEnabled() || resourceId == null) {
+      return true;
+    }
+    CypherParameters params = CypherParamBuilderFilesystemResource.matchFilesystemResource(resourceId);
+    List<CypherQueryWithParameters> queries = new ArrayList<>();
+    queries.add(new CypherQueryWithParameters(CypherQueryBuilderPermissionClosure.deleteClosureOfSubtree(), params));
+    queries.add(new CypherQueryWithParameters(CypherQueryBuilderPermissionClosure.createReadClosureOfSubtree(), params));
+    queries.add(new CypherQueryWithParameters(CypherQueryBuilderPermissionClosure.createWriteClosureOfSubtree(), params));
+    queries.add(new CypherQueryWithParameters(CypherQueryBuilderPermissionClosure.setEverybodyClosureOfSubtree(), params));
+    return executeWriteBatch(queries, "refreshing permission closure");
+  }
+
+  /**
+   * Recomputes the materialized permissions of all the resources. The resources are processed in batches in id order,
+   * each batch in its own transaction, so the rebuild does not need a transaction holding the whole graph. Stops at
+   * the first failing batch, the closure must be rebuilt again in that case.
+   */
+  boolean rebuildPermissionClosure() {
+    String lastResourceId = "";
+    long rebuiltCount = 0;
+    while (true) {
+      CypherParameters lookupParams = CypherParamBuilderFilesystemResource.getFilesystemResourceIdsAfterParameters(
+          lastResourceId, PERMISSION_CLOSURE_REBUILD_BATCH_SIZE);
+      CypherQuery lookup = new CypherQueryWithParameters(CypherQueryBuilderPermissionClosure.getFilesystemResourceIdsAfter(),
+          lookupParams);
+      List<String> resourceIds = executeReadGetStringList(lookup);
+      if (resourceIds.isEmpty()) {
+        break;
+      }
+      CypherParameters params = CypherParamBuilderFilesystemResource.matchFilesystemResources(resourceIds);
+      List<CypherQueryWithParameters> queries = new ArrayList<>();
+      queries.add(new CypherQueryWithParameters(CypherQueryBuilderPermissionClosure.deleteClosureOfResources(), params));
+      queries.add(new CypherQueryWithParameters(CypherQueryBuilderPermissionClosure.createReadClosureOfResources(), params));
+      queries.add(new CypherQueryWithParameters(CypherQueryBuilderPermissionClosure.createWriteClosureOfResources(), params));
+      queries.add(new CypherQueryWithParameters(CypherQueryBuilderPermissionClosure.setEverybodyClosureOfResources(), params));
+      if (!executeWriteBatch(queries, "rebuilding permission closure")) {
+        log.error("Permission closure rebuild stopped after " + rebuiltCount + " resources");
+        return false;
+      }
+      rebuiltCount += resourceIds.size();
+      lastResourceId = resourceIds.get(resourceIds.size() - 1);
+      if (resourceIds.size() < PERMISSION_CLOSURE_REBUILD_BATCH_SIZE) {
+        break;
+      }
+    }
+    log.info("Permission closure rebuilt for " + rebuiltCount + " resources");
+    return true;
+  }
 }
@@ -15,6 +15,7 @@ import org.metadatacenter.server.neo4j.cypher.parameter.CypherParamBuilderUser;
 import org.metadatacenter.server.neo4j.cypher.query.CypherQueryBuilderUser;
 import org.metadatacenter.server.neo4j.parameter.CypherParameters;
 import org.metadatacenter.server.result.BackendCallResult;
+import org.metadatacenter.server.security.AuthenticatedUserCache;
 import org.metadatacenter.server.security.model.user.CedarUser;
 import org.metadatacenter.server.user.UserServiceUtil;
 import org.metadatacenter.util.json.JsonMapper;
@@ -75,6 +76,7 @@ public class Neo4JProxyUser extends AbstractNeo4JProxy {
     }
     CypherQuery q = new CypherQueryWithParameters(cypher, params);
     FolderServerUser updatedUser = executeWriteGetOne(q, FolderServerUser.class);
+    AuthenticatedUserCache.invalidateUser(user.getId());
     result.setPayload(updatedUser.buildUser());
     return result;
   }
@@ -115,6 +117,7 @@ public class Neo4JProxyUser extends AbstractNeo4JProxy {
       }
       CypherQuery q = new CypherQueryWithParameters(cypher, params);
       FolderServerUser updatedUser = executeWriteGetOne(q, FolderServerUser.class);
+      AuthenticatedUserCache.invalidateUser(oldCedarUser.getId());
       result.setPayload(updatedUser.buildUser());
       return result;
     } else {
@@ -94,6 +94,9 @@ public class Neo4JUserSessionAdminService extends AbstractNeo4JUserSession imple
     CedarFolderId rootFolderId = null;
     if (rootFolder == null) {
       rootFolder = proxies.folder().createRootFolder(userId);
+      if (rootFolder != null) {
+        proxies.permission().refreshPermissionClosure(rootFolder.getResourceId());
+      }
     }
     if (rootFolder != null) {
       rootFolderId = rootFolder.getResourceId();
@@ -111,7 +114,10 @@ public class Neo4JUserSessionAdminService extends AbstractNeo4JUserSession imple
       newUsersFolder.setSystem(true);
       newUsersFolder.setUserHome(false);
 
-      proxies.folder().createFolderAsChildOfId(newUsersFolder, rootFolderId);
+      FolderServerFolder createdUsersFolder = proxies.folder().createFolderAsChildOfId(newUsersFolder, rootFolderId);
+      if (createdUsersFolder != null) {
+        proxies.permission().refreshPermissionClosure(createdUsersFolder.getResourceId());
+      }
     }
 
     log.info("Looking for Root Category in Neo4j");
@@ -151,6 +157,7 @@ public class Neo4JUserSessionAdminService extends AbstractNeo4JUserSession imple
     caDSRAdmin.setHomeFolderId(currentUserHomeFolder.getId());
     proxies.user().updateUser(caDSRAdmin);
     proxies.folder().setOwner(currentUserHomeFolder.getResourceId(), caDSRAdmin.getResourceId());
+    proxies.permission().refreshPermissionClosure(currentUserHomeFolder.getResourceId());
 
     // TODO: refactor this, present above as well
     log.info("Looking for Root Category in Neo4j");
@@ -203,4 +210,9 @@ public class Neo4JUserSessionAdminService extends AbstractNeo4JUserSession imple
   public boolean removeAllConstraintsAndIndices() {
     return proxies.admin().removeAllConstraintsAndIndices();
   }
+
+  @Override
+  public boolean rebuildPermissionClosure() {
+    return proxies.permission().rebuildPermissionClosure();
+  }
 }
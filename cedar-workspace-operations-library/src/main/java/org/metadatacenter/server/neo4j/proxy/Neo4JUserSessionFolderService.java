@@ -15,10 +15,14 @@ import org.metadatacenter.server.FolderServiceSession;
 import org.metadatacenter.server.neo4j.AbstractNeo4JUserSession;
 import org.metadatacenter.server.neo4j.Neo4jConfig;
 import org.metadatacenter.server.neo4j.cypher.NodeProperty;
+import org.metadatacenter.server.neo4j.cypher.sort.CountedPage;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetCursor;
+import org.metadatacenter.server.neo4j.cypher.sort.KeysetPage;
 import org.metadatacenter.server.security.model.user.CedarUser;
 import org.metadatacenter.server.security.model.user.ResourcePublicationStatusFilter;
 import org.metadatacenter.server.security.model.user.ResourceVersionFilter;
 import org.metadatacenter.util.CedarUserNameUtil;
+import org.metadatacenter.util.json.JsonMapper;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -40,7 +44,11 @@ public class Neo4JUserSessionFolderService extends AbstractNeo4JUserSession impl
   public FolderServerArtifact createResourceAsChildOfId(FolderServerArtifact newResource,
                                                         CedarFolderId parentFolderId) {
     newResource.setCreatedByTotal(cu.getResourceId());
-    return proxies.artifact().createResourceAsChildOfId(newResource, parentFolderId);
+    FolderServerArtifact createdResource = proxies.artifact().createResourceAsChildOfId(newResource, parentFolderId);
+    if (createdResource != null) {
+      proxies.permission().refreshPermissionClosure(createdResource.getResourceId());
+    }
+    return createdResource;
   }
 
   @Override
@@ -153,6 +161,11 @@ public class Neo4JUserSessionFolderService extends AbstractNeo4JUserSession impl
     return proxies.resource().findAllNodes(limit, offset, sortList);
   }
 
+  @Override
+  public KeysetPage<FolderServerResourceExtract> findAllNodesAfter(int limit, String cursor, List<String> sortList) {
+    return proxies.resource().findAllNodesAfter(limit, decodeCursor(cursor), sortList);
+  }
+
   @Override
   public long findAllNodesCount() {
     return proxies.filesystemResource().findAllNodesCount();
@@ -175,6 +188,28 @@ public class Neo4JUserSessionFolderService extends AbstractNeo4JUserSession impl
         req.getLimit(), req.getOffset(), req.getSort(), cu.getResourceId());
   }
 
+  @Override
+  public KeysetPage<FolderServerResourceExtract> findFolderContentsExtractAfter(CedarFolderId folderId, NodeListRequest req) {
+    return proxies.resource().findFolderContentsExtractAfter(folderId, req.getResourceTypes(), req.getVersion(),
+        req.getPublicationStatus(), req.getLimit(), decodeCursor(req.getCursor()), req.getSort());
+  }
+
+  @Override
+  public CountedPage<FolderServerResourceExtract> findFolderContentsExtractPage(CedarFolderId folderId, NodeListRequest req,
+                                                                                boolean exactTotal) {
+    if (exactTotal) {
+      return proxies.resource().findFolderContentsExtractWithTotal(folderId, req.getResourceTypes(), req.getVersion(),
+          req.getPublicationStatus(), req.getLimit(), req.getOffset(), req.getSort());
+    } else {
+      return proxies.resource().findFolderContentsExtractWithoutTotal(folderId, req.getResourceTypes(), req.getVersion(),
+          req.getPublicationStatus(), req.getLimit(), req.getOffset(), req.getSort());
+    }
+  }
+
+  private static KeysetCursor decodeCursor(String cursor) {
+    return cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+  }
+
   @Override
   public List<Map<String, Object>> findFolderContentsExtractMap(CedarFolderId folderId, NodeListRequest req,
                                                                 List<String> fieldNameList) {
@@ -206,17 +241,29 @@ public class Neo4JUserSessionFolderService extends AbstractNeo4JUserSession impl
   @Override
   public FolderServerFolder createFolderAsChildOfId(FolderServerFolder newFolder, CedarFolderId parentFolderId) {
     newFolder.setCreatedByTotal(cu.getResourceId());
-    return proxies.folder().createFolderAsChildOfId(newFolder, parentFolderId);
+    FolderServerFolder createdFolder = proxies.folder().createFolderAsChildOfId(newFolder, parentFolderId);
+    if (createdFolder != null) {
+      proxies.permission().refreshPermissionClosure(createdFolder.getResourceId());
+    }
+    return createdFolder;
   }
 
   @Override
   public boolean moveResource(CedarArtifactId sourceArtifactId, CedarFolderId targetFolderId) {
-    return proxies.artifact().moveArtifact(sourceArtifactId, targetFolderId);
+    boolean moved = proxies.artifact().moveArtifact(sourceArtifactId, targetFolderId);
+    if (moved) {
+      proxies.permission().refreshPermissionClosure(sourceArtifactId);
+    }
+    return moved;
   }
 
   @Override
   public boolean moveFolder(CedarFolderId sourceFolderId, CedarFolderId targetFolderId) {
-    return proxies.folder().moveFolder(sourceFolderId, targetFolderId);
+    boolean moved = proxies.folder().moveFolder(sourceFolderId, targetFolderId);
+    if (moved) {
+      proxies.permission().refreshPermissionClosure(sourceFolderId);
+    }
+    return moved;
   }
 
   @Override
@@ -251,8 +298,10 @@ public class Neo4JUserSessionFolderService extends AbstractNeo4JUserSession impl
     FolderServerFolder currentUserHomeFolder = findHomeFolderOf();
     if (currentUserHomeFolder == null) {
       currentUserHomeFolder = createUserHomeFolder();
-      cu.setHomeFolderId(currentUserHomeFolder.getId());
-      proxies.user().updateUser(cu);
+      // The context user may be shared through the authenticated user cache, persist the change on a copy
+      CedarUser user = JsonMapper.MAPPER.convertValue(cu, CedarUser.class);
+      user.setHomeFolderId(currentUserHomeFolder.getId());
+      proxies.user().updateUser(user);
     }
     return currentUserHomeFolder;
   }
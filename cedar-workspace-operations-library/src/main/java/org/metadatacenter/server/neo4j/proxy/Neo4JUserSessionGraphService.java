@@ -12,10 +12,16 @@ import org.metadatacenter.server.GraphServiceSession;
 import org.metadatacenter.server.neo4j.AbstractNeo4JUserSession;
 import org.metadatacenter.server.security.model.user.CedarUser;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public class Neo4JUserSessionGraphService extends AbstractNeo4JUserSession implements GraphServiceSession {
 
+  // The arcs the materialized permission closure is computed from
+  private static final Set<RelationLabel> CLOSURE_RELATIONS =
+      EnumSet.of(RelationLabel.OWNS, RelationLabel.CANREAD, RelationLabel.CANWRITE, RelationLabel.CONTAINS);
+
   private Neo4JUserSessionGraphService(CedarConfig cedarConfig, Neo4JProxies proxies, CedarUser cu, String globalRequestId, String localRequestId) {
     super(cedarConfig, proxies, cu, globalRequestId, localRequestId);
   }
@@ -47,12 +53,21 @@ public class Neo4JUserSessionGraphService extends AbstractNeo4JUserSession imple
 
   @Override
   public FileSystemResource createFilesystemResource(JsonNode node) {
-    return proxies.graph().createFilesystemResource(node);
+    FileSystemResource createdResource = proxies.graph().createFilesystemResource(node);
+    if (createdResource != null) {
+      proxies.permission().refreshPermissionClosure(createdResource.getResourceId());
+    }
+    return createdResource;
   }
 
   @Override
   public boolean createArc(CedarResourceId sourceId, RelationLabel relationLabel, CedarResourceId targetId) {
-    return proxies.graph().createArc(sourceId, relationLabel, targetId);
+    boolean created = proxies.graph().createArc(sourceId, relationLabel, targetId);
+    if (created && CLOSURE_RELATIONS.contains(relationLabel)) {
+      // The target is the resource that gained a principal or a parent, its subtree inherits the change
+      proxies.permission().refreshPermissionClosure(targetId);
+    }
+    return created;
   }
 
 }
@@ -89,15 +89,9 @@ public class Neo4JUserSessionResourcePermissionService extends AbstractNeo4JUser
 
       Set<ResourcePermissionUserPermissionPair> toRemoveUserPermissions = new HashSet<>(oldUserPermissions);
       toRemoveUserPermissions.removeAll(newUserPermissions);
-      if (!toRemoveUserPermissions.isEmpty()) {
-        removeUserPermissions(resourceId, toRemoveUserPermissions);
-      }
 
       Set<ResourcePermissionUserPermissionPair> toAddUserPermissions = new HashSet<>(newUserPermissions);
       toAddUserPermissions.removeAll(oldUserPermissions);
-      if (!toAddUserPermissions.isEmpty()) {
-        addUserPermissions(resourceId, toAddUserPermissions);
-      }
 
       Set<ResourcePermissionGroupPermissionPair> oldGroupPermissions = new HashSet<>();
       for (CedarNodeGroupPermission gp : currentPermissions.getGroupPermissions()) {
@@ -110,15 +104,13 @@ public class Neo4JUserSessionResourcePermissionService extends AbstractNeo4JUser
 
       Set<ResourcePermissionGroupPermissionPair> toRemoveGroupPermissions = new HashSet<>(oldGroupPermissions);
       toRemoveGroupPermissions.removeAll(newGroupPermissions);
-      if (!toRemoveGroupPermissions.isEmpty()) {
-        removeGroupPermissions(resourceId, toRemoveGroupPermissions);
-      }
 
       Set<ResourcePermissionGroupPermissionPair> toAddGroupPermissions = new HashSet<>(newGroupPermissions);
       toAddGroupPermissions.removeAll(oldGroupPermissions);
-      if (!toAddGroupPermissions.isEmpty()) {
-        addGroupPermissions(resourceId, toAddGroupPermissions);
-      }
+
+      // Apply the whole diff in one transaction, with one UNWIND query per principal type and relation
+      proxies.permission().updatePermissions(resourceId, toRemoveUserPermissions, toAddUserPermissions,
+          toRemoveGroupPermissions, toAddGroupPermissions);
 
       ResourceWithEverybodyPermission node = proxies.filesystemResource().findResourceById(resourceId);
       if (node != null) {
@@ -141,6 +133,8 @@ public class Neo4JUserSessionResourcePermissionService extends AbstractNeo4JUser
         }
       }
 
+      proxies.permission().refreshPermissionClosure(resourceId);
+
       return new BackendCallResult();
     }
   }
@@ -165,6 +159,24 @@ public class Neo4JUserSessionResourcePermissionService extends AbstractNeo4JUser
     }
   }
 
+  @Override
+  public Set<String> getReadableResourceIds(List<? extends CedarFilesystemResourceId> resourceIds) {
+    Set<String> readableIds = new HashSet<>();
+    if (resourceIds.isEmpty()) {
+      return readableIds;
+    }
+    List<String> ids = new ArrayList<>();
+    for (CedarFilesystemResourceId resourceId : resourceIds) {
+      ids.add(resourceId.getId());
+    }
+    if (cu.has(CedarPermission.READ_NOT_READABLE_NODE)) {
+      readableIds.addAll(ids);
+    } else {
+      readableIds.addAll(proxies.permission().getReadableFilesystemResourceIds(cu.getResourceId(), ids));
+    }
+    return readableIds;
+  }
+
   @Override
   public boolean userHasWriteAccessToResource(CedarFilesystemResourceId resourceId) {
     if (cu.has(CedarPermission.WRITE_NOT_WRITABLE_NODE)) {
@@ -290,28 +302,4 @@ public class Neo4JUserSessionResourcePermissionService extends AbstractNeo4JUser
     return proxies.permission().getGroupIdsWithTransitivePermissionOnResource(resourceId, permission);
   }
 
-  private void addGroupPermissions(CedarFilesystemResourceId resourceId, Set<ResourcePermissionGroupPermissionPair> toAddGroupPermissions) {
-    for (ResourcePermissionGroupPermissionPair pair : toAddGroupPermissions) {
-      proxies.permission().addPermissionToGroup(resourceId, pair.getGroup().getResourceId(), pair.getPermission());
-    }
-  }
-
-  private void removeGroupPermissions(CedarFilesystemResourceId resourceId, Set<ResourcePermissionGroupPermissionPair> toRemoveGroupPermissions) {
-    for (ResourcePermissionGroupPermissionPair pair : toRemoveGroupPermissions) {
-      proxies.permission().removePermissionFromGroup(resourceId, pair.getGroup().getResourceId(), pair.getPermission());
-    }
-  }
-
-  private void addUserPermissions(CedarFilesystemResourceId resourceId, Set<ResourcePermissionUserPermissionPair> toAddUserPermissions) {
-    for (ResourcePermissionUserPermissionPair pair : toAddUserPermissions) {
-      proxies.permission().addPermissionToUser(resourceId, pair.getUser().getResourceIds(), pair.getPermission());
-    }
-  }
-
-  private void removeUserPermissions(CedarFilesystemResourceId resourceId, Set<ResourcePermissionUserPermissionPair> toRemoveUserPermissions) {
-    for (ResourcePermissionUserPermissionPair pair : toRemoveUserPermissions) {
-      proxies.permission().removePermissionFromUser(resourceId, pair.getUser().getResourceIds(), pair.getPermission());
-    }
-  }
-
 }
@@ -5,13 +5,18 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.metadatacenter.server.neo4j.cypher.NodeProperty;
 import org.metadatacenter.util.json.JsonMapper;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Neo4JUtil {
 
   private static final String ESCAPED_ID = "_id";
 
+  // Nodes only carry a handful of distinct property names, so the unescaped form is computed once per name
+  private static final Map<String, String> unescapedPropertyNames = new ConcurrentHashMap<>();
+
   private Neo4JUtil() {
   }
 
@@ -34,6 +39,14 @@ public class Neo4JUtil {
     return r;
   }
 
+  public static Map<String, Object> unescapeTopLevelPropertyNames(Map<String, Object> properties) {
+    Map<String, Object> r = new HashMap<>(properties.size() * 4 / 3 + 1);
+    for (Map.Entry<String, Object> entry : properties.entrySet()) {
+      r.put(unescapedPropertyNames.computeIfAbsent(entry.getKey(), Neo4JUtil::unescapePropertyName), entry.getValue());
+    }
+    return r;
+  }
+
   private static String unescapePropertyName(String propertyName) {
     if (ESCAPED_ID.equals(propertyName)) {
       return NodeProperty.Label.ID;